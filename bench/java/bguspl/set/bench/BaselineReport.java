@@ -0,0 +1,157 @@
+package bguspl.set.bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares JMH results (in CSV format) to baseline results, and reports the benchmarks that regressed by more than a
+ * threshold: lower throughput, or higher time or allocation per operation. Changes within the error margins of the two
+ * scores are not reported as regressions.
+ * Usage: java -cp target/benchmarks.jar bguspl.set.bench.BaselineReport baseline.csv results.csv [threshold%]
+ * The exit code is 1 if any benchmark regressed (so it can gate a release).
+ */
+public class BaselineReport {
+
+    /**
+     * The default regression threshold (in percents).
+     */
+    public static final double DEFAULT_THRESHOLD = 10;
+
+    /**
+     * Differences in allocation smaller than this (in bytes per operation) are considered noise.
+     */
+    private static final double ALLOCATION_NOISE = 1;
+
+    private static final String ALLOCATION = ":gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BaselineReport baseline.csv results.csv [threshold%]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        System.exit(compare(Paths.get(args[0]), Paths.get(args[1]), threshold, System.out) ? 0 : 1);
+    }
+
+    /**
+     * A single score of a benchmark.
+     */
+    private static class Score {
+        final double value;
+        final double error;
+        final String unit;
+
+        Score(double value, double error, String unit) {
+            this.value = value;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        /**
+         * @return - true iff lower values are better (time or allocation per operation).
+         */
+        boolean lowerIsBetter() {
+            return unit.endsWith("/op");
+        }
+    }
+
+    /**
+     * Compares results to baseline results and prints a report.
+     *
+     * @param baseline  - the baseline results file.
+     * @param results   - the results file.
+     * @param threshold - the regression threshold (in percents).
+     * @param out       - the stream to print the report to.
+     * @return - true iff no benchmark regressed by more than the threshold.
+     */
+    public static boolean compare(Path baseline, Path results, double threshold, PrintStream out) throws IOException {
+        Map<String, Score> before = read(baseline), after = read(results);
+        int regressions = 0;
+        out.printf("%-12s %9s %14s %14s  %s%n", "status", "change", "baseline", "current", "benchmark");
+        for (Map.Entry<String, Score> entry : after.entrySet()) {
+            Score current = entry.getValue(), previous = before.get(entry.getKey());
+            if (previous == null) {
+                out.printf("%-12s %9s %14s %14.3f  %s [%s]%n", "new", "", "", current.value, entry.getKey(), current.unit);
+                continue;
+            }
+
+            double change = previous.value == 0 ? 0 : (current.value - previous.value) / previous.value * 100;
+            double worse = current.lowerIsBetter() ? change : -change;
+            double difference = Math.abs(current.value - previous.value);
+            boolean noise = difference <= current.error + previous.error
+                    || entry.getKey().contains(ALLOCATION) && difference < ALLOCATION_NOISE;
+            String status = noise || worse <= threshold ? worse < -threshold && !noise ? "improved" : "ok" : "REGRESSION";
+            if (status.equals("REGRESSION")) ++regressions;
+            out.printf("%-12s %+8.1f%% %14.3f %14.3f  %s [%s]%n",
+                    status, change, previous.value, current.value, entry.getKey(), current.unit);
+        }
+        out.println(regressions == 0 ? "no regressions above " + threshold + "%"
+                : regressions + " regression(s) above " + threshold + "%");
+        return regressions == 0;
+    }
+
+    /**
+     * Reads the primary scores and the normalized allocation rates of a JMH CSV results file.
+     *
+     * @return - the scores, by benchmark name, mode and parameters.
+     */
+    private static Map<String, Score> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Map<String, Score> scores = new LinkedHashMap<>();
+        if (lines.isEmpty()) return scores;
+
+        List<String> header = parse(lines.get(0));
+        int benchmark = header.indexOf("Benchmark"), mode = header.indexOf("Mode");
+        int score = header.indexOf("Score"), error = header.indexOf("Score Error (99.9%)");
+        int unit = header.indexOf("Unit");
+        for (String line : lines.subList(1, lines.size())) {
+            List<String> fields = parse(line);
+            if (fields.size() != header.size()) continue;
+            String name = fields.get(benchmark);
+            if (name.contains(":") && !name.endsWith(ALLOCATION)) continue;
+
+            StringBuilder key = new StringBuilder(name).append(' ').append(fields.get(mode));
+            for (int i = 0; i < header.size(); ++i)
+                if (header.get(i).startsWith("Param: ") && !fields.get(i).isEmpty())
+                    key.append(' ').append(header.get(i).substring(7)).append('=').append(fields.get(i));
+            try {
+                double margin = error < 0 || fields.get(error).isEmpty() ? 0 : Double.parseDouble(fields.get(error));
+                scores.put(key.toString(), new Score(Double.parseDouble(fields.get(score)),
+                        Double.isNaN(margin) ? 0 : margin, fields.get(unit)));
+            } catch (NumberFormatException ignored) { // e.g. NaN scores of failed benchmarks
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Splits a CSV line into fields (fields may be quoted, with doubled quotes inside).
+     */
+    private static List<String> parse(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); ++i) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') field.append(line.charAt(++i));
+                else if (c == '"') quoted = false;
+                else field.append(c);
+            } else if (c == '"') quoted = true;
+            else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else field.append(c);
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
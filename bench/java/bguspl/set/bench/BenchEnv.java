@@ -0,0 +1,54 @@
+package bguspl.set.bench;
+
+import bguspl.set.Clock;
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.Journal;
+import bguspl.set.NoUserInterface;
+import bguspl.set.RandomSource;
+import bguspl.set.UtilImpl;
+
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates game environments for the benchmarks: no user interface, no logging and no table delays.
+ */
+public class BenchEnv {
+
+    private BenchEnv() {
+    }
+
+    /**
+     * @param settings - pairs of configuration keys and values (e.g. "FeatureSize", "3").
+     * @return - a configuration with the given settings (and defaults for the rest).
+     */
+    public static Config config(String... settings) {
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        properties.put("LogLevel", "OFF");
+        for (int i = 0; i + 1 < settings.length; i += 2)
+            properties.put(settings[i], settings[i + 1]);
+        return new Config(logger(), properties);
+    }
+
+    public static Env env(Config config) {
+        return new Env(logger(), config, new NoUserInterface(), new UtilImpl(config));
+    }
+
+    /**
+     * @return - an environment of a reproducible game (e.g. on a virtual clock, recorded to a journal).
+     */
+    public static Env env(Config config, Clock clock, long seed, Journal journal) {
+        return new Env(logger(), config, new NoUserInterface(), new UtilImpl(config), clock, new RandomSource(seed),
+                journal);
+    }
+
+    public static Logger logger() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.OFF);
+        return logger;
+    }
+}
@@ -0,0 +1,35 @@
+package bguspl.set.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Runs all the benchmarks with the GC profiler (for the allocation rates) and saves the results in CSV format. Given
+ * baseline results, it then compares the results to them (see BaselineReport) and fails on regressions.
+ * Usage: java -cp target/benchmarks.jar bguspl.set.bench.Benchmarks [results.csv [baseline.csv [threshold%]]]
+ */
+public class Benchmarks {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String results = args.length > 0 ? args[0] : "jmh-result.csv";
+        Options options = new OptionsBuilder()
+                .include("bguspl\\.set\\..*Benchmark\\.")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.CSV)
+                .result(results)
+                .build();
+        new Runner(options).run();
+
+        if (args.length > 1) {
+            double threshold = args.length > 2 ? Double.parseDouble(args[2]) : BaselineReport.DEFAULT_THRESHOLD;
+            System.exit(BaselineReport.compare(Paths.get(args[1]), Paths.get(results), threshold, System.out) ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package bguspl.set.bench;
+
+import bguspl.set.Config;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks of the card utilities: set testing, feature decoding and set finding, on a table-sized collection of
+ * cards and on the whole deck.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBenchmark {
+
+    /**
+     * The number of groups of cards tested (cycled through).
+     */
+    private static final int GROUPS = 1024;
+
+    @Param({"3", "4"})
+    public int featureSize;
+
+    @Param({"4", "6"})
+    public int featureCount;
+
+    @Param({"12"})
+    public int tableSize;
+
+    private Config config;
+    private Util util;
+    private int[] groups;
+    private int group;
+    private int[] features;
+    private int[] deck;
+    private int[] table;
+    private List<Integer> tableList;
+    private int[] sets;
+
+    @Setup
+    public void setUp() {
+        config = BenchEnv.config("FeatureSize", Integer.toString(featureSize),
+                "FeatureCount", Integer.toString(featureCount));
+        util = new UtilImpl(config);
+        Random random = new Random(1);
+
+        List<Integer> cards = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(cards, random);
+        deck = cards.stream().mapToInt(Integer::intValue).toArray();
+        table = new int[tableSize];
+        System.arraycopy(deck, 0, table, 0, tableSize);
+        tableList = new ArrayList<>(cards.subList(0, tableSize));
+
+        // half of the groups are legal sets (taken from the deck), the others are random
+        List<int[]> legal = util.findSets(cards.subList(0, Math.min(cards.size(), 200)), GROUPS / 2);
+        groups = new int[GROUPS * featureSize];
+        for (int i = 0; i < GROUPS; ++i)
+            for (int j = 0; j < featureSize; ++j)
+                groups[i * featureSize + j] = i % 2 == 0 && !legal.isEmpty()
+                        ? legal.get(i / 2 % legal.size())[j] : random.nextInt(config.deckSize);
+
+        features = new int[featureCount];
+        sets = new int[featureSize];
+    }
+
+    private int nextGroup() {
+        group = (group + 1) % GROUPS;
+        return group * featureSize;
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        return util.testSet(groups, nextGroup(), featureSize);
+    }
+
+    @Benchmark
+    public int[] cardToFeatures() {
+        util.cardToFeatures(groups[nextGroup()], features);
+        return features;
+    }
+
+    @Benchmark
+    public int findAnySetOnTable() {
+        return util.findSets(table, tableSize, 1, sets);
+    }
+
+    @Benchmark
+    public List<int[]> findAnySetOnTableList() {
+        return util.findSets(tableList, 1);
+    }
+
+    @Benchmark
+    public long countSetsOnTable() {
+        return util.countSets(table, tableSize);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long countSetsInDeck() {
+        return util.countSets(deck, deck.length);
+    }
+}
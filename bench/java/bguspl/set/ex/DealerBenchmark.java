@@ -0,0 +1,101 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.bench.BenchEnv;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks a full claim cycle of the dealer (without the player and dealer threads): a player places its tokens on a
+ * legal set (while the other players have tokens on it too), the dealer checks it, awards a point, removes the cards and
+ * the tokens, and the cards are dealt back to their slots. A batch of claims of all the players is benchmarked too.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DealerBenchmark {
+
+    @Param({"2", "20"})
+    public int players;
+
+    private Table table;
+    private Dealer dealer;
+    private int[] set;
+
+    @Setup
+    public void setUp() {
+        Config config = BenchEnv.config("ComputerPlayers", Integer.toString(players), "HumanPlayers", "0");
+        Env env = BenchEnv.env(config);
+        table = new Table(env);
+        Player[] players = new Player[config.players];
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; ++i)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        set = env.util.findSets(IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList()), 1).get(0);
+        int[] others = IntStream.range(0, config.deckSize).filter(card -> Arrays.stream(set).noneMatch(c -> c == card)).toArray();
+        for (int slot = 0; slot < config.tableSize; ++slot)
+            table.placeCard(slot < set.length ? set[slot] : others[slot], slot);
+        table.unlock();
+    }
+
+    @Benchmark
+    public int claimSet() {
+        Player claimer = dealer.players[0];
+        placeTokens(claimer);
+        for (int player = 1; player < players; ++player)
+            table.placeToken(player, player % set.length);
+
+        dealer.checkClaim(table.claim(claimer.id, claimer.setQueue));
+
+        dealCardsBack();
+        return claimer.score();
+    }
+
+    /**
+     * All the players claim the same set at once: the first claim of the batch wins, and the others are dropped by
+     * their stamps.
+     */
+    @Benchmark
+    public long claimBatch() {
+        for (Player player : dealer.players) {
+            placeTokens(player);
+            dealer.submit(table.claim(player.id, player.setQueue));
+        }
+        dealer.checkClaims();
+
+        dealCardsBack();
+        return dealer.claimStats.claims();
+    }
+
+    private void placeTokens(Player player) {
+        for (int slot = 0; slot < set.length; ++slot) {
+            table.placeToken(player.id, slot);
+            player.setQueue[slot] = set[slot];
+        }
+    }
+
+    private void dealCardsBack() {
+        for (int slot = 0; slot < set.length; ++slot)
+            table.placeCard(set[slot], slot);
+        table.unlock();
+    }
+}
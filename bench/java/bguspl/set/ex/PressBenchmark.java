@@ -0,0 +1,71 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.bench.BenchEnv;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the latency from a key press to its token on the table, through the press queue of a running player
+ * thread, for every wait strategy of the player thread (see IntRing): the benchmark thread presses a slot and waits
+ * until the token appears, then presses it again and waits until the token is gone (an operation is the two presses).
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PressBenchmark {
+
+    @Param({"SPIN", "YIELD", "PARK", "BLOCK"})
+    public String strategy;
+
+    private Table table;
+    private Player player;
+    private Thread playerThread;
+
+    @Setup
+    public void setUp() {
+        Config config = BenchEnv.config("HumanPlayers", "1", "ComputerPlayers", "0", "PressWaitStrategy", strategy);
+        Env env = BenchEnv.env(config);
+        table = new Table(env);
+        for (int slot = 0; slot < config.tableSize; ++slot)
+            table.placeCard(slot, slot);
+        table.unlock();
+        player = new Player(env, null, table, 0, true);
+        playerThread = new Thread(player, "player");
+        playerThread.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        player.terminate();
+        playerThread.interrupt();
+        playerThread.join();
+    }
+
+    @Benchmark
+    public boolean pressAndRelease() {
+        player.keyPressed(0);
+        while (!table.hasToken(0, 0))
+            Thread.onSpinWait();
+        player.keyPressed(0);
+        while (table.hasToken(0, 0))
+            Thread.onSpinWait();
+        return true;
+    }
+}
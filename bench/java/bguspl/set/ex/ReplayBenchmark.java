@@ -0,0 +1,80 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.Journal;
+import bguspl.set.JournalReader;
+import bguspl.set.JournalWriter;
+import bguspl.set.VirtualClock;
+import bguspl.set.bench.BenchEnv;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the replay of a game journal at unlimited speed (the table and the claim checks, without the threads of
+ * the game). The journal is given with -p journal=file (e.g. of a slow game recorded in production, replayed with the
+ * configuration it was recorded with), or else a game of computer players is recorded on a virtual clock with a fixed
+ * seed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplayBenchmark {
+
+    @Param({""})
+    public String journal;
+
+    private Config config;
+    private byte[] events;
+
+    @Setup
+    public void setUp() throws IOException {
+        config = BenchEnv.config("ComputerPlayers", "2", "HumanPlayers", "0");
+        events = journal.isEmpty() ? record() : Files.readAllBytes(Paths.get(journal));
+    }
+
+    /**
+     * Records a game of computer players, played on the calling thread (as the dealer) and on virtual time.
+     */
+    private byte[] record() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VirtualClock clock = new VirtualClock();
+        JournalWriter writer = new JournalWriter(BenchEnv.logger(), config, clock, 1, out);
+        Env env = BenchEnv.env(config, clock, 1, writer);
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; ++i)
+            players[i] = new Player(env, dealer, table, i, false);
+        dealer.run();
+        writer.close();
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Replay.Result replay() throws IOException, InterruptedException {
+        Env env = BenchEnv.env(config, new VirtualClock(), 1, Journal.NONE);
+        try (JournalReader reader = new JournalReader(new ByteArrayInputStream(events))) {
+            return new Replay(env).run(reader, 0);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.bench.BenchEnv;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the table operations: placing/removing cards (including the upkeep of the index of the sets on the
+ * table), placing/removing tokens and taking views of the table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark {
+
+    @Param({"3x4", "6x6"})
+    public String grid;
+
+    @Param({"2", "20"})
+    public int players;
+
+    private Config config;
+    private Table table;
+    private int slot;
+    private int card;
+    private int player;
+
+    @Setup
+    public void setUp() {
+        String[] dimensions = grid.split("x");
+        config = BenchEnv.config("Rows", dimensions[0], "Columns", dimensions[1],
+                "ComputerPlayers", Integer.toString(players), "HumanPlayers", "0");
+        Env env = BenchEnv.env(config);
+        table = new Table(env);
+        for (int i = 0; i < config.tableSize; ++i)
+            table.placeCard(i, i);
+        table.unlock();
+    }
+
+    /**
+     * Replaces the card in a slot (the slot cycles through the table, the cards through the rest of the deck).
+     */
+    @Benchmark
+    public long replaceCard() {
+        slot = (slot + 1) % config.tableSize;
+        card = (card + 1) % (config.deckSize - config.tableSize);
+        int replaced = table.cardAt(slot);
+        table.removeCard(slot);
+        table.placeCard(config.tableSize + card, slot);
+        table.removeCard(slot);
+        table.placeCard(replaced, slot);
+        return table.countSets();
+    }
+
+    @Benchmark
+    public int placeAndRemoveToken() {
+        slot = (slot + 1) % config.tableSize;
+        player = (player + 1) % players;
+        table.placeToken(player, slot);
+        return table.removeToken(player, slot);
+    }
+
+    /**
+     * Takes a view of the table after a token changed (copies the tokens, shares the cards of the last view).
+     */
+    @Benchmark
+    public TableView viewAfterToken() {
+        slot = (slot + 1) % config.tableSize;
+        player = (player + 1) % players;
+        table.placeToken(player, slot);
+        table.removeToken(player, slot);
+        return table.view();
+    }
+}
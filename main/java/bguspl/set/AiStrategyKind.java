@@ -0,0 +1,21 @@
+package bguspl.set;
+
+/**
+ * The strategies of the computer players (see bguspl.set.ex.AiStrategy).
+ */
+public enum AiStrategyKind {
+    /**
+     * Presses random slots, as fast as the player takes the presses.
+     */
+    RANDOM,
+    /**
+     * Claims a set found by searching the whole table with the set finder (waits for the table to change if there is
+     * none).
+     */
+    FINDER,
+    /**
+     * Looks at random featureSize - 1 cards (pairs of cards, for the usual deck) and claims the set they complete if
+     * its last card is on the table (looks again after a reaction time if none of its attempts found a set).
+     */
+    COMPLETION
+}
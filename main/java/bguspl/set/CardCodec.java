@@ -0,0 +1,183 @@
+package bguspl.set;
+
+import java.util.Arrays;
+
+/**
+ * Packs the features of every card into a long, so a group of cards can be checked with a few bitwise operations
+ * instead of decoding each card feature by feature.
+ * Every feature gets a lane of featureSize bits, in which the bit of the feature value is set (e.g. for 3 values:
+ * 001, 010 or 100). Then, for a group of featureSize cards, a feature is the same in all cards iff the AND of the cards
+ * has a bit in its lane, and it is different in all cards iff the OR of the cards has all the bits of its lane - both
+ * can be checked for all lanes at once (SWAR: SIMD within a register).
+ * Cards can be packed only if all the lanes fit in a long (i.e. featureSize * featureCount <= 64).
+ */
+public class CardCodec {
+
+    /**
+     * The maximum number of bits decoded at once by a decoding table.
+     */
+    private static final int CHUNK_BITS = 12;
+
+    private final int featureSize;
+    private final int deckSize;
+
+    /**
+     * True iff the cards can be packed (otherwise none of the packed operations should be used).
+     */
+    public final boolean packable;
+
+    /**
+     * The packed features of every card.
+     */
+    private final long[] packed;
+
+    /**
+     * All the bits of all the lanes, and the highest bit of every lane.
+     */
+    private final long lanes;
+    private final long highs;
+
+    /**
+     * All the bits of a single lane (at the lowest lane).
+     */
+    private final long laneBits;
+
+    /**
+     * Tables for decoding packed cards a chunk of whole lanes at a time: the part of the card id encoded by each bit
+     * pattern of the chunk (-1 if some lane of the pattern does not have exactly one bit set).
+     */
+    private final int chunkBits;
+    private final int[][] chunks;
+
+    public CardCodec(Config config) {
+        featureSize = config.featureSize;
+        deckSize = config.deckSize;
+        int featureCount = config.featureCount;
+        packable = featureSize >= 1 && featureSize <= 16 && (long) featureSize * featureCount <= Long.SIZE;
+
+        if (!packable) {
+            packed = null;
+            lanes = highs = laneBits = 0;
+            chunkBits = 0;
+            chunks = null;
+            return;
+        }
+
+        laneBits = (1L << featureSize) - 1;
+        long allLanes = 0, allHighs = 0;
+        for (int i = 0; i < featureCount; ++i) {
+            allLanes |= laneBits << (i * featureSize);
+            allHighs |= 1L << (i * featureSize + featureSize - 1);
+        }
+        lanes = allLanes;
+        highs = allHighs;
+
+        packed = new long[deckSize];
+        for (int card = 0; card < deckSize; ++card) {
+            long bits = 0;
+            for (int i = 0, id = card; i < featureCount; ++i, id /= featureSize)
+                bits |= 1L << (i * featureSize + id % featureSize);
+            packed[card] = bits;
+        }
+
+        int lanesPerChunk = Math.max(1, CHUNK_BITS / featureSize);
+        chunkBits = lanesPerChunk * featureSize;
+        chunks = new int[(featureCount + lanesPerChunk - 1) / lanesPerChunk][];
+        for (int c = 0, weight = 1; c < chunks.length; ++c) {
+            int chunkLanes = Math.min(lanesPerChunk, featureCount - c * lanesPerChunk);
+            chunks[c] = new int[1 << (chunkLanes * featureSize)];
+            Arrays.fill(chunks[c], -1);
+            fillChunk(chunks[c], chunkLanes, 0, 0, 0, weight);
+            for (int i = 0; i < chunkLanes; ++i)
+                weight *= featureSize;
+        }
+    }
+
+    /**
+     * Fills the valid bit patterns of a decoding table (lane by lane).
+     */
+    private void fillChunk(int[] chunk, int chunkLanes, int lane, int bits, int id, int weight) {
+        if (lane == chunkLanes) {
+            chunk[bits] = id;
+            return;
+        }
+        for (int value = 0; value < featureSize; ++value)
+            fillChunk(chunk, chunkLanes, lane + 1, bits | 1 << (lane * featureSize + value), id + value * weight,
+                    weight * featureSize);
+    }
+
+    /**
+     * @param card - a card id.
+     * @return - the packed features of the card.
+     */
+    public long pack(int card) {
+        return packed[card];
+    }
+
+    /**
+     * Converts packed features back to a card id.
+     *
+     * @param bits - the packed features.
+     * @return - the card id, or -1 if the bits are not the packed features of a card.
+     */
+    public int unpack(long bits) {
+        if ((bits & ~lanes) != 0) return -1;
+        int card = 0;
+        for (int[] chunk : chunks) {
+            int part = chunk[(int) (bits & (chunk.length - 1))];
+            if (part < 0) return -1;
+            card += part;
+            bits >>>= chunkBits;
+        }
+        return card;
+    }
+
+    /**
+     * Checks, for every lane at once, whether it has any bit set.
+     *
+     * @return - the highest bit of every lane that has a bit set.
+     */
+    private long nonEmptyLanes(long bits) {
+        // adding all ones to the lower bits of a lane carries into its highest bit iff any of them is set
+        return (((bits & ~highs) + (lanes & ~highs)) | bits) & highs;
+    }
+
+    /**
+     * Checks if featureSize packed cards form a legal set.
+     *
+     * @param cards  - an array of card ids.
+     * @param offset - the index of the first card.
+     * @param length - the number of cards (should be featureSize, at least 2).
+     * @return - true iff the cards form a legal set.
+     */
+    public boolean testSet(int[] cards, int offset, int length) {
+        long and = lanes, or = 0;
+        for (int i = offset; i < offset + length; ++i) {
+            and &= packed[cards[i]];
+            or |= packed[cards[i]];
+        }
+        long sameSame = nonEmptyLanes(and);
+        long butDifferent = highs & ~nonEmptyLanes(~or & lanes);
+        return (sameSame | butDifferent) == highs;
+    }
+
+    /**
+     * Computes the card that completes featureSize - 1 cards into a legal set.
+     *
+     * @param cards  - an array of card ids.
+     * @param offset - the index of the first card.
+     * @param length - the number of cards (should be featureSize - 1, at least 2).
+     * @return - the id of the completing card, or -1 if there is none.
+     */
+    public int complete(int[] cards, int offset, int length) {
+        long and = lanes, or = 0;
+        for (int i = offset; i < offset + length; ++i) {
+            and &= packed[cards[i]];
+            or |= packed[cards[i]];
+        }
+
+        // the lanes that are the same in all cards are kept, the others get the values none of the cards has
+        long different = (highs & ~nonEmptyLanes(and)) >>> (featureSize - 1);
+        return unpack(and | ~or & different * laneBits);
+    }
+}
@@ -0,0 +1,85 @@
+package bguspl.set;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The source of time of a game: all the timing of the game (turn timeouts, freezes, table delays) and every wait of
+ * its threads go through the clock, so a game may run on wall-clock time or on virtual time.
+ * <p>
+ * The threads of a game that wait through the clock are its participants: a participant is registered before it
+ * starts (by the thread that starts it) and unregisters itself when it is done.
+ *
+ * @see RealClock
+ * @see VirtualClock
+ */
+public interface Clock {
+
+    /**
+     * @return - the current time (in milliseconds).
+     */
+    long millis();
+
+    /**
+     * Waits for the given time.
+     *
+     * @param millis - the time to wait (in milliseconds).
+     * @throws InterruptedException - if the waiting thread is interrupted.
+     */
+    void sleep(long millis) throws InterruptedException;
+
+    /**
+     * Takes the head of a queue, waiting for an element if needed.
+     *
+     * @param queue   - the queue (its elements must be added through the offer method of the clock).
+     * @param timeout - the maximal time to wait (in milliseconds), Long.MAX_VALUE to wait without a timeout.
+     * @return - the head of the queue, or null if the timeout passed first.
+     * @throws InterruptedException - if the waiting thread is interrupted.
+     */
+    <E> E poll(BlockingQueue<E> queue, long timeout) throws InterruptedException;
+
+    /**
+     * Adds an element to a queue (if there is room in it) and wakes a thread waiting on the queue.
+     *
+     * @param queue   - the queue.
+     * @param element - the element to add.
+     * @return - true iff the element was added.
+     */
+    <E> boolean offer(BlockingQueue<E> queue, E element);
+
+    /**
+     * Called by a participant that has nothing to do until a condition holds: waits until the condition holds (and
+     * on the virtual clock, the time may advance meanwhile). The condition is checked again whenever another
+     * participant of the game starts to wait, offers an element to a queue or signals the clock.
+     *
+     * @param condition - the condition (it must depend only on state changed by the participants).
+     * @throws InterruptedException - if the waiting thread is interrupted.
+     */
+    void idle(BooleanSupplier condition) throws InterruptedException;
+
+    /**
+     * Wakes the idle participants to check their conditions again: called by a thread that changed the state they
+     * depend on outside of the clock (e.g. in an IntRing), or that starts to wait outside of the clock.
+     */
+    void signal();
+
+    /**
+     * Registers a participant (before its thread is started).
+     */
+    void register();
+
+    /**
+     * Unregisters a participant (called by its thread when it is done).
+     */
+    void unregister();
+
+    /**
+     * Creates the clock of a game.
+     *
+     * @param config - the game configuration.
+     * @return - a new virtual clock if the game runs on virtual time, and a new real clock otherwise.
+     */
+    static Clock of(Config config) {
+        return config.virtualTime ? new VirtualClock() : new RealClock();
+    }
+}
@@ -36,6 +36,17 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * The number of threads used to find sets in large collections of cards (1 to find them in the calling thread,
+     * 0 for the number of available processors)
+     */
+    public final int finderParallelism;
+
+    /**
+     * The minimum number of cards in a collection for its sets to be found in parallel
+     */
+    public final int parallelFinderMinCards;
+
     /**
      * The number of human players in the game.
      */
@@ -56,6 +67,100 @@ public class Config {
      */
     public final boolean hints;
 
+    /**
+     * The number of game rooms to host (more than 1 runs the rooms of computer players without a user interface)
+     */
+    public final int rooms;
+
+    /**
+     * The number of rooms that are played at the same time (the rest wait for a free worker)
+     */
+    public final int roomWorkers;
+
+    /**
+     * Whether to play on virtual time (which advances instantly whenever all the threads of a game wait) instead of
+     * wall-clock time
+     */
+    public final boolean virtualTime;
+
+    /**
+     * Whether to run the players, the computer players and the room workers on virtual threads (Java 21 or later, the
+     * configuration is rejected on an older JDK), see Threads
+     */
+    public final boolean virtualThreads;
+
+    /**
+     * How a player thread waits for key presses (see IntRing); always BLOCK on virtual time, where a spinning player
+     * would keep the time from advancing
+     */
+    public final IntRing.WaitStrategy pressWaitStrategy;
+
+    /**
+     * How the computer players choose their key presses, see AiStrategy
+     */
+    public final AiStrategyKind aiStrategy;
+
+    /**
+     * The mean time a computer player takes to react before every key press (in milliseconds)
+     */
+    public final long aiReactionMillis;
+
+    /**
+     * The spread of the reaction times of the computer players around their mean (in milliseconds)
+     */
+    public final long aiReactionJitterMillis;
+
+    /**
+     * The distribution of the reaction times of the computer players, see AiSkill
+     */
+    public final ReactionDistribution aiReactionDistribution;
+
+    /**
+     * The probability that a computer player claims a wrong set instead of the set it found (between 0 and 1)
+     */
+    public final double aiErrorRate;
+
+    /**
+     * The number of combinations of cards a computer player with the COMPLETION strategy tries every time it looks at the
+     * table
+     */
+    public final int aiSearchAttempts;
+
+    /**
+     * The number of games to simulate instead of playing a game (0 to play), see the Simulation class
+     */
+    public final int simulationGames;
+
+    /**
+     * The seed of all the random sources of the game (0 for a random seed, which is logged), see RandomSource
+     */
+    public final long seed;
+
+    /**
+     * The file to write the journal of the game to (empty for none), see JournalWriter
+     */
+    public final String journalFile;
+
+    /**
+     * The directory to write the structured event log of the game to (empty for none), see EventLog
+     */
+    public final String eventLogDirectory;
+
+    /**
+     * The size of every segment file of the event log (in bytes)
+     */
+    public final long eventLogSegmentBytes;
+
+    /**
+     * The file to save snapshots of the game to, and to restore the game from on startup (empty for none), see Snapshot
+     */
+    public final String snapshotFile;
+
+    /**
+     * The number of milliseconds between the snapshots of the game
+     */
+    public final long snapshotIntervalMillis;
+
     /**
      * The number of milliseconds until the dealer reshuffles the deck (0 show timer since last action, -1 show nothing)
      */
@@ -197,6 +302,9 @@ public class Config {
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        int parallelism = Integer.parseInt(properties.getProperty("FinderParallelism", "1"));
+        finderParallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        parallelFinderMinCards = Integer.parseInt(properties.getProperty("ParallelFinderMinCards", "1000"));
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
@@ -204,6 +312,33 @@ public class Config {
         players = humanPlayers + computerPlayers;
 
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
+        rooms = Integer.parseInt(properties.getProperty("Rooms", "1"));
+        int workers = Integer.parseInt(properties.getProperty("RoomWorkers", "0"));
+        roomWorkers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        virtualTime = Boolean.parseBoolean(properties.getProperty("VirtualTime", "False"));
+        virtualThreads = Boolean.parseBoolean(properties.getProperty("VirtualThreads", "False"));
+        if (virtualThreads && !Threads.virtualThreadsSupported())
+            throw new IllegalArgumentException("VirtualThreads needs Java 21 or later (running on Java "
+                    + Runtime.version().feature() + ")");
+        IntRing.WaitStrategy strategy = IntRing.WaitStrategy.valueOf(properties.getProperty("PressWaitStrategy", "Block").trim().toUpperCase());
+        if (virtualTime && strategy != IntRing.WaitStrategy.BLOCK) {
+            logger.severe("warning: the press wait strategy " + strategy + " cannot be used on virtual time, using BLOCK.");
+            strategy = IntRing.WaitStrategy.BLOCK;
+        }
+        pressWaitStrategy = strategy;
+        aiStrategy = AiStrategyKind.valueOf(properties.getProperty("AiStrategy", "Random").trim().toUpperCase());
+        aiReactionMillis = (long) (Double.parseDouble(properties.getProperty("AiReactionSeconds", "0")) * 1000.0);
+        aiReactionJitterMillis = (long) (Double.parseDouble(properties.getProperty("AiReactionJitterSeconds", "0")) * 1000.0);
+        aiReactionDistribution = ReactionDistribution.valueOf(properties.getProperty("AiReactionDistribution", "Fixed").trim().toUpperCase());
+        aiErrorRate = Double.parseDouble(properties.getProperty("AiErrorRate", "0"));
+        aiSearchAttempts = Integer.parseInt(properties.getProperty("AiSearchAttempts", "10"));
+        simulationGames = Integer.parseInt(properties.getProperty("SimulationGames", "0"));
+        seed = Long.parseLong(properties.getProperty("Seed", "0"));
+        journalFile = properties.getProperty("JournalFile", "").trim();
+        eventLogDirectory = properties.getProperty("EventLogDirectory", "").trim();
+        eventLogSegmentBytes = (long) (Double.parseDouble(properties.getProperty("EventLogSegmentMegabytes", "16")) * 1024 * 1024);
+        snapshotFile = properties.getProperty("SnapshotFile", "").trim();
+        snapshotIntervalMillis = (long) (Double.parseDouble(properties.getProperty("SnapshotIntervalSeconds", "10")) * 1000.0);
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
         turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
@@ -8,11 +8,26 @@ public class Env {
     public final Config config;
     public final UserInterface ui;
     public final Util util;
+    public final Clock clock;
+    public final RandomSource random;
+    public final Journal journal;
 
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, Clock.of(config));
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock) {
+        this(logger, config, ui, util, clock, RandomSource.of(config), Journal.NONE);
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock, RandomSource random,
+               Journal journal) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.clock = clock;
+        this.random = random;
+        this.journal = journal;
     }
 }
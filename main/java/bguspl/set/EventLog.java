@@ -0,0 +1,300 @@
+package bguspl.set;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * A structured log of the events of a game, appended to memory-mapped segment files of a fixed size.
+ * <p>
+ * Every event is a fixed-size record of a single 8-byte word: its type (8 bits), player (8 bits), slot (8 bits), card
+ * (12 bits) and time (28 bits, in milliseconds since the log started, about 3 days). A field that does not apply to
+ * an event (or does not fit its bits) has all of its bits set. A claim is logged as a single record of the player (the
+ * claimed cards are the ones under the tokens of the player, whose records precede it), and a verdict as the ordinal
+ * of the verdict in the slot field.
+ * <p>
+ * Appending never locks and never does file I/O: a producer reserves the index of its record with a compare-and-set,
+ * and writes the record into the mapped segment with a single store (so a reader tailing the log concurrently sees
+ * either a zero word, for a record that is not written yet, or the whole record). The segments are created and
+ * mapped ahead of the producers by a background thread; if a producer outruns it anyway, its event is dropped (and
+ * counted), instead of waiting for the file system.
+ * <p>
+ * A segment file (events-N.log) starts with a header of HEADER_BYTES bytes: the magic number, the format version, the
+ * record size, the segment number and the start time of the log (epoch milliseconds of the game's clock).
+ *
+ * @see EventLogReader
+ */
+public class EventLog implements Journal, Closeable {
+
+    static final int MAGIC = 0x5345544C; // "SETL"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    public static final int RECORD_BYTES = 8;
+
+    /*
+     * The types of the events.
+     */
+    public static final int PLACE_CARD = 1;
+    public static final int REMOVE_CARD = 2;
+    public static final int PLACE_TOKEN = 3;
+    public static final int REMOVE_TOKEN = 4;
+    public static final int CLAIM = 5;
+    public static final int VERDICT = 6;
+    public static final int RESHUFFLE = 7;
+
+    private static final int SMALL_BITS = 8;
+    private static final int CARD_BITS = 12;
+    private static final int MILLIS_BITS = 28;
+
+    /**
+     * The number of segments kept mapped: the current one, the one mapped ahead of it, and the previous ones (for
+     * producers that reserved a record just before the log moved on).
+     */
+    private static final int MAPPED_SEGMENTS = 4;
+
+    private final Logger logger;
+    private final Path directory;
+    private final Clock clock;
+    private final long start;
+    private final int recordsPerSegment;
+
+    /**
+     * The index of the next record to write (over all the segments).
+     */
+    private final AtomicLong position = new AtomicLong();
+
+    /**
+     * The mapped segments (segment n is at index n % MAPPED_SEGMENTS), and the number of the last one.
+     */
+    private final AtomicReferenceArray<MappedByteBuffer> segments = new AtomicReferenceArray<>(MAPPED_SEGMENTS);
+    private volatile long lastSegment = -1;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final Thread mapper;
+    private volatile boolean closed;
+
+    /**
+     * Creates a log in a directory, and maps its first segments.
+     *
+     * @param logger       - the logger to report errors to.
+     * @param directory    - the directory of the segment files (created if needed).
+     * @param segmentBytes - the size of every segment file.
+     * @param clock        - the clock the events are timed by.
+     * @throws IOException - if the first segments cannot be created.
+     */
+    public EventLog(Logger logger, Path directory, long segmentBytes, Clock clock) throws IOException {
+        this.logger = logger;
+        this.directory = directory;
+        this.clock = clock;
+        long records = (segmentBytes - HEADER_BYTES) / RECORD_BYTES;
+        if (records < 1 || records > Integer.MAX_VALUE / RECORD_BYTES)
+            throw new IllegalArgumentException("illegal segment size " + segmentBytes);
+        recordsPerSegment = (int) records;
+        start = clock.millis();
+        Files.createDirectories(directory);
+        map(0);
+        map(1);
+        mapper = new Thread(this::mapAhead, "event-log");
+        mapper.setDaemon(true);
+        mapper.start();
+    }
+
+    /**
+     * @return - the path of a segment file.
+     */
+    static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("events-%06d.log", segment));
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        append(PLACE_CARD, -1, slot, card);
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        append(REMOVE_CARD, -1, slot, -1);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        append(PLACE_TOKEN, player, slot, -1);
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        append(REMOVE_TOKEN, player, slot, -1);
+    }
+
+    @Override
+    public void claim(int player, int[] cards) {
+        append(CLAIM, player, -1, -1);
+    }
+
+    @Override
+    public void verdict(int player, Verdict verdict) {
+        append(VERDICT, player, verdict.ordinal(), -1);
+    }
+
+    @Override
+    public void reshuffle() {
+        append(RESHUFFLE, -1, -1, -1);
+    }
+
+    /**
+     * Appends a record (lock-free, and without file I/O).
+     */
+    private void append(int type, int player, int slot, int card) {
+        long record = record(type, player, slot, card, clock.millis() - start);
+        while (!closed) {
+            long index = position.get();
+            long segment = index / recordsPerSegment;
+            if (segment > lastSegment) { // the mapper fell behind
+                dropped.increment();
+                LockSupport.unpark(mapper);
+                return;
+            }
+            if (position.compareAndSet(index, index + 1)) {
+                int offset = (int) (index % recordsPerSegment);
+                segments.get((int) (segment % MAPPED_SEGMENTS)).putLong(HEADER_BYTES + offset * RECORD_BYTES, record);
+                if (offset == 0) LockSupport.unpark(mapper); // a new segment was started: map the one after it
+                return;
+            }
+        }
+    }
+
+    /**
+     * Packs the fields of a record into its word.
+     */
+    static long record(int type, int player, int slot, int card, long millis) {
+        return (long) type << (64 - SMALL_BITS)
+                | field(player, SMALL_BITS) << (64 - 2 * SMALL_BITS)
+                | field(slot, SMALL_BITS) << (64 - 3 * SMALL_BITS)
+                | field(card, CARD_BITS) << MILLIS_BITS
+                | Math.max(0, Math.min(millis, (1L << MILLIS_BITS) - 1));
+    }
+
+    private static long field(int value, int bits) {
+        long none = (1L << bits) - 1;
+        return value < 0 || value >= none ? none : value;
+    }
+
+    private static int unpack(long record, int shift, int bits) {
+        long none = (1L << bits) - 1;
+        long value = (record >>> shift) & none;
+        return value == none ? -1 : (int) value;
+    }
+
+    /**
+     * @return - the type of a record.
+     */
+    public static int type(long record) {
+        return (int) (record >>> (64 - SMALL_BITS));
+    }
+
+    /**
+     * @return - the player of a record (-1 if none).
+     */
+    public static int player(long record) {
+        return unpack(record, 64 - 2 * SMALL_BITS, SMALL_BITS);
+    }
+
+    /**
+     * @return - the slot of a record (-1 if none).
+     */
+    public static int slot(long record) {
+        return unpack(record, 64 - 3 * SMALL_BITS, SMALL_BITS);
+    }
+
+    /**
+     * @return - the card of a record (-1 if none).
+     */
+    public static int card(long record) {
+        return unpack(record, MILLIS_BITS, CARD_BITS);
+    }
+
+    /**
+     * @return - the time of a record (in milliseconds since the log started).
+     */
+    public static long millis(long record) {
+        return record & ((1L << MILLIS_BITS) - 1);
+    }
+
+    /**
+     * @return - the number of events dropped since the log started (because the segment files were not ready).
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return - the number of events written since the log started.
+     */
+    public long written() {
+        return position.get();
+    }
+
+    /**
+     * Stops the log: the mapped segments are flushed to their files (the events appended afterwards are ignored).
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(mapper);
+        try {
+            mapper.join();
+        } catch (InterruptedException ignored) {
+        }
+        for (int i = 0; i < MAPPED_SEGMENTS; i++) {
+            MappedByteBuffer segment = segments.get(i);
+            if (segment != null) segment.force();
+        }
+        if (dropped() > 0) logger.warning("the event log dropped " + dropped() + " events");
+    }
+
+    /**
+     * The loop of the mapper thread: keeps the segment after the current one mapped.
+     */
+    private void mapAhead() {
+        while (!closed) {
+            long current = position.get() / recordsPerSegment;
+            if (lastSegment <= current) try {
+                map(lastSegment + 1);
+                continue;
+            } catch (IOException e) {
+                logger.severe("cannot create an event log segment, events are dropped: " + e);
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    /**
+     * Creates a segment file and maps it (called by the constructor and the mapper thread only).
+     */
+    private void map(long segment) throws IOException {
+        long bytes = HEADER_BYTES + (long) recordsPerSegment * RECORD_BYTES;
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segmentPath(directory, segment), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, RECORD_BYTES);
+        buffer.putLong(16, segment);
+        buffer.putLong(24, start);
+        segments.set((int) (segment % MAPPED_SEGMENTS), buffer);
+        lastSegment = segment;
+    }
+}
@@ -0,0 +1,105 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads an event log (see EventLog), possibly while it is written: the records are read in the order of their indexes,
+ * and a record that is not written yet ends the records available for now (next returns 0 until it is written).
+ */
+public class EventLogReader {
+
+    private static final String[] TYPES = {"?", "place card", "remove card", "place token", "remove token", "claim",
+            "verdict", "reshuffle"};
+
+    private final Path directory;
+
+    private long segment = -1;
+    private MappedByteBuffer buffer;
+    private int offset;
+    private long start;
+
+    /**
+     * @param directory - the directory of the segment files of the log.
+     */
+    public EventLogReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return - the start time of the log (epoch milliseconds of the game's clock), or 0 before a record was read.
+     */
+    public long start() {
+        return start;
+    }
+
+    /**
+     * Reads the next record of the log.
+     *
+     * @return - the record (see the static methods of EventLog), or 0 if it is not written yet.
+     * @throws IOException - if a segment file cannot be read, or is not a segment of an event log.
+     */
+    public long next() throws IOException {
+        if (buffer == null || offset + EventLog.RECORD_BYTES > buffer.capacity()) {
+            if (!Files.exists(EventLog.segmentPath(directory, segment + 1))) return 0;
+            open(segment + 1);
+        }
+        long record = buffer.getLong(offset);
+        if (record != 0) offset += EventLog.RECORD_BYTES;
+        return record;
+    }
+
+    private void open(long next) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(EventLog.segmentPath(directory, next), StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (mapped.capacity() < EventLog.HEADER_BYTES || mapped.getInt(0) != EventLog.MAGIC)
+            throw new IOException("not an event log segment: " + EventLog.segmentPath(directory, next));
+        if (mapped.getInt(4) != EventLog.VERSION || mapped.getInt(8) != EventLog.RECORD_BYTES)
+            throw new IOException("unsupported event log version " + mapped.getInt(4));
+        start = mapped.getLong(24);
+        buffer = mapped;
+        segment = next;
+        offset = EventLog.HEADER_BYTES;
+    }
+
+    /**
+     * @return - a record as text.
+     */
+    public static String toString(long record) {
+        int type = EventLog.type(record);
+        StringBuilder sb = new StringBuilder().append(EventLog.millis(record)).append(' ')
+                .append(type < TYPES.length ? TYPES[type] : "?");
+        if (EventLog.player(record) >= 0) sb.append(" player ").append(EventLog.player(record) + 1);
+        if (type == EventLog.VERDICT)
+            sb.append(' ').append(Verdict.values()[EventLog.slot(record)]);
+        else if (EventLog.slot(record) >= 0)
+            sb.append(" slot ").append(EventLog.slot(record));
+        if (EventLog.card(record) >= 0) sb.append(" card ").append(EventLog.card(record));
+        return sb.toString();
+    }
+
+    /**
+     * Prints an event log as text.
+     * Usage: java -cp target/classes bguspl.set.EventLogReader directory [--follow]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        EventLogReader reader = new EventLogReader(Paths.get(args[0]));
+        boolean follow = args.length > 1 && args[1].equals("--follow");
+        while (true) {
+            long record = reader.next();
+            if (record != 0)
+                System.out.println(toString(record));
+            else if (follow)
+                Thread.sleep(100);
+            else
+                break;
+        }
+    }
+}
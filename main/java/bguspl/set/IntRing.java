@@ -0,0 +1,159 @@
+package bguspl.set;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A bounded single-producer single-consumer queue of ints (e.g. the key presses of a player), in a ring of primitive
+ * slots: offering and taking never lock and never allocate. Exactly one thread may offer and one thread may take.
+ * <p>
+ * The producer publishes an element by advancing the tail, and the consumer frees its slot by advancing the head
+ * (each index is written by a single thread, so no compare-and-set is needed). An empty ring is waited on with a wait
+ * strategy, which trades the latency of the consumer against the CPU it burns while the ring is empty:
+ * - SPIN: busy-spins (the lowest latency, a whole core while waiting),
+ * - YIELD: yields the processor between checks,
+ * - PARK: parks for PARK_NANOS between checks (no wake up is needed from the producer),
+ * - BLOCK: waits through the clock of the game until the producer wakes it (no CPU while waiting; the only strategy
+ * that lets a virtual clock advance, see Config.pressWaitStrategy).
+ */
+public final class IntRing {
+
+    /**
+     * The value returned when no element is available.
+     */
+    public static final int EMPTY = Integer.MIN_VALUE;
+
+    /**
+     * The ways to wait for an element.
+     */
+    public enum WaitStrategy {
+        SPIN, YIELD, PARK, BLOCK
+    }
+
+    /**
+     * The time the PARK strategy parks for between checks (in nanoseconds).
+     */
+    static final long PARK_NANOS = 50_000;
+
+    private final int[] slots;
+    private final int mask;
+    private final int capacity;
+    private final WaitStrategy strategy;
+    private final Clock clock;
+
+    /**
+     * The index of the next element to take (written by the consumer only), and the producer's last read of it.
+     */
+    private final AtomicLong head = new AtomicLong();
+    private long cachedHead;
+
+    /**
+     * The index of the next element to offer (written by the producer only).
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * True while the consumer waits through the clock (BLOCK), so the producer has to wake it.
+     */
+    private volatile boolean waiting;
+
+    /**
+     * @param capacity - the maximal number of elements in the ring.
+     * @param strategy - the way the consumer waits for an element.
+     * @param clock    - the clock of the game (the BLOCK strategy waits through it, and the others signal it when they
+     *                 start to wait, as any participant that starts to wait does).
+     */
+    public IntRing(int capacity, WaitStrategy strategy, Clock clock) {
+        if (capacity < 1 || capacity > 1 << 30) throw new IllegalArgumentException("illegal capacity " + capacity);
+        slots = new int[capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1]; // a power of 2
+        mask = slots.length - 1;
+        this.capacity = capacity;
+        this.strategy = strategy;
+        this.clock = clock;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return - the number of elements in the ring (exact when called by the producer or the consumer while the other
+     * one is idle, a snapshot otherwise).
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(capacity, size));
+    }
+
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+
+    /**
+     * Adds an element if there is room for it (called by the producer only), and wakes the consumer if it is blocked.
+     *
+     * @param value - the element (any int but EMPTY).
+     * @return - true iff the element was added.
+     */
+    public boolean offer(int value) {
+        long index = tail.get();
+        if (index - cachedHead >= capacity) {
+            cachedHead = head.get();
+            if (index - cachedHead >= capacity) return false;
+        }
+        slots[(int) index & mask] = value;
+        if (strategy == WaitStrategy.BLOCK) {
+            tail.set(index + 1); // a full fence: the read of waiting below cannot pass it (see take)
+            if (waiting) clock.signal();
+        } else
+            tail.lazySet(index + 1);
+        return true;
+    }
+
+    /**
+     * Takes the head of the ring (called by the consumer only).
+     *
+     * @return - the head, or EMPTY if the ring is empty.
+     */
+    public int poll() {
+        long index = head.get();
+        if (index == tail.get()) return EMPTY;
+        int value = slots[(int) index & mask];
+        head.lazySet(index + 1);
+        return value;
+    }
+
+    /**
+     * Takes the head of the ring, waiting for an element with the wait strategy of the ring if needed (called by the
+     * consumer only).
+     *
+     * @param cancelled - stops the wait when it holds (e.g. when the game is terminated).
+     * @return - the head, or EMPTY if the wait was cancelled.
+     * @throws InterruptedException - if the consumer is interrupted while waiting.
+     */
+    public int take(BooleanSupplier cancelled) throws InterruptedException {
+        int value = poll();
+        if (value != EMPTY) return value;
+        if (strategy == WaitStrategy.BLOCK) {
+            waiting = true; // written before the tail is read again by the condition, while offer writes the tail first
+            try {
+                clock.idle(() -> cancelled.getAsBoolean() || !isEmpty());
+            } finally {
+                waiting = false;
+            }
+            return poll();
+        }
+        clock.signal();
+        while ((value = poll()) == EMPTY && !cancelled.getAsBoolean()) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (strategy == WaitStrategy.SPIN)
+                Thread.onSpinWait();
+            else if (strategy == WaitStrategy.YIELD)
+                Thread.yield();
+            else
+                LockSupport.parkNanos(PARK_NANOS);
+        }
+        return value;
+    }
+}
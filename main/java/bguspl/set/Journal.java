@@ -0,0 +1,128 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Receives the events of a game as they happen: the cards dealt and removed, the tokens placed and removed, the claims
+ * and the dealer's verdicts, and the reshuffles. The events of different threads are received in the order they reach
+ * the journal (the calls may come from any thread).
+ *
+ * @see JournalWriter
+ * @see JournalReader
+ * @see EventLog
+ */
+public interface Journal {
+
+    /**
+     * A journal that ignores all the events.
+     */
+    Journal NONE = new Journal() {
+    };
+
+    /**
+     * @param journals - journals (null ones are ignored).
+     * @return - a journal that passes every event to all the given journals.
+     */
+    static Journal all(Journal... journals) {
+        Journal[] targets = Arrays.stream(journals).filter(Objects::nonNull).filter(j -> j != NONE)
+                .toArray(Journal[]::new);
+        if (targets.length == 0) return NONE;
+        if (targets.length == 1) return targets[0];
+        return new Journal() {
+            @Override
+            public void placeCard(int card, int slot) {
+                for (Journal journal : targets) journal.placeCard(card, slot);
+            }
+
+            @Override
+            public void removeCard(int slot) {
+                for (Journal journal : targets) journal.removeCard(slot);
+            }
+
+            @Override
+            public void placeToken(int player, int slot) {
+                for (Journal journal : targets) journal.placeToken(player, slot);
+            }
+
+            @Override
+            public void removeToken(int player, int slot) {
+                for (Journal journal : targets) journal.removeToken(player, slot);
+            }
+
+            @Override
+            public void claim(int player, int[] cards) {
+                for (Journal journal : targets) journal.claim(player, cards);
+            }
+
+            @Override
+            public void verdict(int player, Verdict verdict) {
+                for (Journal journal : targets) journal.verdict(player, verdict);
+            }
+
+            @Override
+            public void reshuffle() {
+                for (Journal journal : targets) journal.reshuffle();
+            }
+        };
+    }
+
+    /**
+     * A card was placed on the table.
+     *
+     * @param card - the id of the card.
+     * @param slot - the slot it was placed in.
+     */
+    default void placeCard(int card, int slot) {
+    }
+
+    /**
+     * A card was removed from the table.
+     *
+     * @param slot - the slot it was removed from.
+     */
+    default void removeCard(int slot) {
+    }
+
+    /**
+     * A player placed a token on the table.
+     *
+     * @param player - the id of the player.
+     * @param slot   - the slot of the token.
+     */
+    default void placeToken(int player, int slot) {
+    }
+
+    /**
+     * A token was removed from the table (by its player, or by the dealer).
+     *
+     * @param player - the id of the player.
+     * @param slot   - the slot of the token.
+     */
+    default void removeToken(int player, int slot) {
+    }
+
+    /**
+     * A player claimed a set.
+     *
+     * @param player - the id of the player.
+     * @param cards  - the claimed card ids.
+     */
+    default void claim(int player, int[] cards) {
+    }
+
+    /**
+     * The dealer gave its verdict on the pending claim of a player (before acting on it).
+     *
+     * @param player  - the id of the player.
+     * @param verdict - the verdict.
+     */
+    default void verdict(int player, Verdict verdict) {
+    }
+
+    /**
+     * The dealer started to return all the cards on the table to the deck.
+     */
+    default void reshuffle() {
+    }
+}
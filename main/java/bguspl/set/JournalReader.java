@@ -0,0 +1,125 @@
+package bguspl.set;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a journal written by JournalWriter, passing its events one by one to a Journal.
+ */
+public class JournalReader implements Closeable {
+
+    private static final Verdict[] VERDICTS = Verdict.values();
+
+    private final DataInputStream in;
+
+    /**
+     * The header of the journal.
+     */
+    public final long seed;
+    public final int featureSize;
+    public final int featureCount;
+    public final int tableSize;
+    public final int players;
+
+    /**
+     * The time of the last event read (in milliseconds since the journal started).
+     */
+    private long time;
+
+    /**
+     * Reads the header of a journal.
+     *
+     * @param in - the stream of the journal (closed when the reader is closed).
+     * @throws IOException - if the stream cannot be read, or is not a journal of a supported version.
+     */
+    public JournalReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        if (this.in.readInt() != JournalWriter.MAGIC) throw new IOException("not a game journal");
+        int version = this.in.readUnsignedByte();
+        if (version != JournalWriter.VERSION) throw new IOException("unsupported journal version " + version);
+        seed = this.in.readLong();
+        featureSize = readInt();
+        featureCount = readInt();
+        tableSize = readInt();
+        players = readInt();
+    }
+
+    /**
+     * @return - the time of the last event read (in milliseconds since the journal started).
+     */
+    public long time() {
+        return time;
+    }
+
+    /**
+     * Reads the next event of the journal and passes it to a journal.
+     *
+     * @param target - the journal to pass the event to.
+     * @return - false iff the journal ended.
+     * @throws IOException - if the stream cannot be read, or the journal is corrupt.
+     */
+    public boolean next(Journal target) throws IOException {
+        int type = in.read();
+        if (type < 0) return false;
+        time += readVarint();
+        switch (type) {
+            case JournalWriter.PLACE_CARD:
+                target.placeCard(readInt(), readInt());
+                break;
+            case JournalWriter.REMOVE_CARD:
+                target.removeCard(readInt());
+                break;
+            case JournalWriter.PLACE_TOKEN:
+                target.placeToken(readInt(), readInt());
+                break;
+            case JournalWriter.REMOVE_TOKEN:
+                target.removeToken(readInt(), readInt());
+                break;
+            case JournalWriter.CLAIM:
+                int player = readInt();
+                int[] cards = new int[readInt()];
+                for (int i = 0; i < cards.length; i++)
+                    cards[i] = readInt() - 1;
+                target.claim(player, cards);
+                break;
+            case JournalWriter.VERDICT:
+                player = readInt();
+                int verdict = readInt();
+                if (verdict >= VERDICTS.length) throw new IOException("corrupt journal: verdict " + verdict);
+                target.verdict(player, VERDICTS[verdict]);
+                break;
+            case JournalWriter.RESHUFFLE:
+                target.reshuffle();
+                break;
+            default:
+                throw new IOException("corrupt journal: event type " + type);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int readInt() throws IOException {
+        long value = readVarint();
+        if (value > Integer.MAX_VALUE) throw new IOException("corrupt journal: value " + value);
+        return (int) value;
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException("truncated journal");
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("corrupt journal: varint too long");
+    }
+}
@@ -0,0 +1,270 @@
+package bguspl.set;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Writes the events of a game to a compact binary journal, which can be replayed (see JournalReader and Replay).
+ * <p>
+ * The journal starts with a header: the magic number, the format version, the seed of the game and the shape of the
+ * game (the feature size and count, the table size and the number of players). Every event follows as its type (a
+ * byte), the time since the previous event (in milliseconds of the game's clock) and its arguments, all numbers but
+ * the type written as unsigned varints (7 bits a byte, so most events take 3 to 5 bytes).
+ * <p>
+ * The events are received under the locks of the table, so receiving one never locks and never does I/O (as in
+ * EventLog): a producer reserves the indexes of its records in a ring with a compare-and-set, and stores them with
+ * their time; a background thread writes the records to the stream in the order of their indexes, which is the order
+ * the events reached the journal. If writing fails, or the writer falls a whole ring behind, the error is logged and
+ * the rest of the events are dropped (the game goes on).
+ */
+public class JournalWriter implements Journal, Closeable {
+
+    static final int MAGIC = 0x5345544A; // "SETJ"
+    static final int VERSION = 1;
+
+    /*
+     * The types of the events.
+     */
+    static final byte PLACE_CARD = 1;
+    static final byte REMOVE_CARD = 2;
+    static final byte PLACE_TOKEN = 3;
+    static final byte REMOVE_TOKEN = 4;
+    static final byte CLAIM = 5;
+    static final byte VERDICT = 6;
+    static final byte RESHUFFLE = 7;
+
+    /**
+     * The type of the records that follow a claim, one per claimed card (not an event of its own).
+     */
+    private static final byte CLAIMED_CARD = 8;
+
+    private static final int ARGUMENT_BITS = 28;
+    private static final long ARGUMENT_MASK = (1L << ARGUMENT_BITS) - 1;
+
+    /**
+     * The number of records in the ring (a power of 2).
+     */
+    private static final int RING_RECORDS = 1 << 16;
+
+    /**
+     * How long the writer thread sleeps when there are no records to write.
+     */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The bit of position that is set once no more records are taken (the journal was closed, or it failed).
+     */
+    private static final long STOPPED = Long.MIN_VALUE;
+
+    private final Logger logger;
+    private final Clock clock;
+    private final DataOutputStream out;
+
+    /**
+     * The records of the ring (0 for a record that is not stored yet), and the time of every event.
+     */
+    private final AtomicLongArray records = new AtomicLongArray(RING_RECORDS);
+    private final long[] times = new long[RING_RECORDS];
+
+    /**
+     * The index of the next record to reserve (over all the turns of the ring), and the STOPPED bit.
+     */
+    private final AtomicLong position = new AtomicLong();
+
+    /**
+     * The index of the next record to write (records below it may be reserved again).
+     */
+    private final AtomicLong written = new AtomicLong();
+
+    private volatile boolean overflowed;
+    private final Thread writer;
+
+    private long lastTime;
+    private boolean failed;
+
+    /**
+     * Writes the header of the journal, and starts the thread that writes its events.
+     *
+     * @param logger - the logger to report write errors to.
+     * @param config - the configuration of the game.
+     * @param clock  - the clock of the game (the events are stamped with its time).
+     * @param seed   - the seed of the game.
+     * @param out    - the stream to write to (closed when the journal is closed).
+     */
+    public JournalWriter(Logger logger, Config config, Clock clock, long seed, OutputStream out) {
+        this.logger = logger;
+        this.clock = clock;
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        lastTime = clock.millis();
+        try {
+            this.out.writeInt(MAGIC);
+            this.out.writeByte(VERSION);
+            this.out.writeLong(seed);
+            writeVarint(config.featureSize);
+            writeVarint(config.featureCount);
+            writeVarint(config.tableSize);
+            writeVarint(config.players);
+        } catch (IOException e) {
+            fail(e);
+        }
+        writer = new Thread(this::writeRecords, "journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        append(PLACE_CARD, card, slot, null);
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        append(REMOVE_CARD, slot, 0, null);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        append(PLACE_TOKEN, player, slot, null);
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        append(REMOVE_TOKEN, player, slot, null);
+    }
+
+    @Override
+    public void claim(int player, int[] cards) {
+        append(CLAIM, player, cards.length, cards);
+    }
+
+    @Override
+    public void verdict(int player, Verdict verdict) {
+        append(VERDICT, player, verdict.ordinal(), null);
+    }
+
+    @Override
+    public void reshuffle() {
+        append(RESHUFFLE, 0, 0, null);
+    }
+
+    /**
+     * Writes the events received so far, flushes the journal and closes its stream (the events received afterwards
+     * are ignored).
+     */
+    @Override
+    public void close() {
+        position.getAndUpdate(index -> index | STOPPED);
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    /**
+     * Stores the record of an event (and a record per claimed card, if any) in the ring (lock-free, and without I/O).
+     */
+    private void append(byte type, int first, int second, int[] cards) {
+        int count = cards == null ? 1 : 1 + cards.length;
+        long time = clock.millis();
+        long index;
+        do {
+            index = position.get();
+            if (index < 0) return; // stopped
+            if (index + count - written.get() > RING_RECORDS) { // the writer fell behind
+                if (position.compareAndSet(index, index | STOPPED)) overflowed = true;
+                return;
+            }
+        } while (!position.compareAndSet(index, index + count));
+
+        if (cards != null)
+            for (int i = 0; i < cards.length; i++)
+                store(index + 1 + i, record(CLAIMED_CARD, cards[i] + 1, 0), 0); // a card not on the table is -1
+        store(index, record(type, first, second), time);
+        if (index + count - written.get() >= RING_RECORDS / 2) LockSupport.unpark(writer); // wake it up early
+    }
+
+    private void store(long index, long record, long time) {
+        int i = (int) (index & (RING_RECORDS - 1));
+        times[i] = time;
+        records.setRelease(i, record);
+    }
+
+    private static long record(byte type, int first, int second) {
+        return (long) type << (2 * ARGUMENT_BITS) | (first & ARGUMENT_MASK) << ARGUMENT_BITS | (second & ARGUMENT_MASK);
+    }
+
+    /**
+     * The loop of the writer thread: writes the records in the order of their indexes, until the journal stops and
+     * all the records reserved before it are written.
+     */
+    private void writeRecords() {
+        long next = 0;
+        while (true) {
+            long index = position.get();
+            if (next == (index & ~STOPPED)) {
+                if (index < 0) break;
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+            int i = (int) (next & (RING_RECORDS - 1));
+            long record = records.getAcquire(i);
+            if (record == 0) { // reserved, but not stored yet
+                Thread.onSpinWait();
+                continue;
+            }
+            long time = times[i];
+            records.setPlain(i, 0);
+            written.set(++next);
+            if (!failed) write(record, time);
+        }
+        if (overflowed) logger.severe("the journal fell behind the game, the rest of the events are dropped");
+        try {
+            out.close();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void write(long record, long time) {
+        byte type = (byte) (record >>> (2 * ARGUMENT_BITS));
+        int first = (int) ((record >>> ARGUMENT_BITS) & ARGUMENT_MASK);
+        int second = (int) (record & ARGUMENT_MASK);
+        try {
+            if (type == CLAIMED_CARD) {
+                writeVarint(first);
+                return;
+            }
+            out.writeByte(type);
+            writeVarint(Math.max(0, time - lastTime)); // the wall clock may step back
+            lastTime = Math.max(lastTime, time);
+            if (type == RESHUFFLE) return;
+            writeVarint(first);
+            if (type != REMOVE_CARD) writeVarint(second);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private void fail(IOException e) {
+        if (!failed) logger.severe("cannot write the journal, the rest of the events are dropped: " + e);
+        failed = true;
+        position.getAndUpdate(index -> index | STOPPED);
+    }
+}
@@ -2,14 +2,23 @@ package bguspl.set;
 
 import bguspl.set.ex.Dealer;
 import bguspl.set.ex.Player;
+import bguspl.set.ex.Replay;
+import bguspl.set.ex.Snapshot;
+import bguspl.set.ex.SnapshotWriter;
 import bguspl.set.ex.Table;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.*;
 
 /**
@@ -23,6 +32,11 @@ public class Main {
     private static boolean xButtonPressed = false;
     private static Logger logger;
 
+    /**
+     * The interval between throughput reports of the game rooms (in seconds).
+     */
+    private static final long ROOMS_REPORT_SECONDS = 10;
+
     public static void xButtonPressed() throws InterruptedException {
         if (logger != null) logger.severe("exit button pressed");
         xButtonPressed = true;
@@ -33,7 +47,8 @@ public class Main {
     /**
      * The game's main function. Creates all data structures and initializes the threads.
      *
-     * @param args - unused.
+     * @param args - "--simulate [games]" to simulate games instead of playing (see the SimulationGames setting), or
+     *             "--replay file [--speed factor] [--ui]" to replay the journal of a game.
      */
     public static void main(String[] args) {
 
@@ -44,6 +59,32 @@ public class Main {
         ThreadLogger.logStart(logger, Thread.currentThread().getName());
         Config config = new Config(logger, "config.properties");
         Util util = new UtilImpl(config);
+        try {
+            run(config, util, args);
+        } finally {
+            util.close();
+        }
+    }
+
+    /**
+     * Replays, simulates or plays the game (as given on the command line).
+     */
+    private static void run(Config config, Util util, String[] args) {
+        String replayFile = argument(args, "--replay", null);
+        if (replayFile != null) {
+            runReplay(config, util, replayFile, Double.parseDouble(argument(args, "--speed", "0")),
+                    Arrays.asList(args).contains("--ui"));
+            return;
+        }
+        int simulationGames = simulationGames(args, config);
+        if (simulationGames > 0) {
+            runSimulation(config, util, simulationGames);
+            return;
+        }
+        if (config.rooms > 1) {
+            runRooms(config, util);
+            return;
+        }
 
         Player[] players = new Player[config.players];
         UserInterface ui = null;
@@ -55,15 +96,26 @@ public class Main {
             if (config.humanPlayers > 0)
                 logger.severe("warning: running with human players with no user interface");
         }
-        ui = new UserInterfaceDecorator(logger, util, ui);
+        Clock clock = Clock.of(config);
+        EventLog eventLog = openEventLog(config, clock);
+        if (eventLog == null)
+            ui = new UserInterfaceDecorator(logger, util, ui);
+        else if (ui == null) { // the events are logged to the event log instead of the text log
+            System.out.println("running without a user interface. Check the event log.");
+            ui = new NoUserInterface();
+        }
 
-        Env env = new Env(logger, config, ui, util);
+        RandomSource random = RandomSource.of(config);
+        logger.info("seed: " + random.seed());
+        JournalWriter journal = openJournal(config, clock, random.seed());
+        Env env = new Env(logger, config, ui, util, clock, random, Journal.all(journal, eventLog));
 
         // create the game entities
         Table table = new Table(env);
         dealer = new Dealer(env, table, players);
         for (int i = 0; i < players.length; i++)
             players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
+        SnapshotWriter snapshots = openSnapshots(config, dealer);
 
         // start the dealer thread
         ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger);
@@ -79,6 +131,145 @@ public class Main {
             System.out.println("Thanks for playing... it was fun!");
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
             if (!xButtonPressed) env.ui.dispose();
+            if (journal != null) journal.close();
+            if (eventLog != null) eventLog.close();
+            if (snapshots != null) snapshots.close();
+            for (Handler h : logger.getHandlers()) h.flush();
+        }
+    }
+
+    /**
+     * @return - the event log of the game, or null if no event log is configured (or it cannot be created).
+     */
+    private static EventLog openEventLog(Config config, Clock clock) {
+        if (config.eventLogDirectory.isEmpty()) return null;
+        try {
+            return new EventLog(logger, Paths.get(config.eventLogDirectory), config.eventLogSegmentBytes, clock);
+        } catch (IOException e) {
+            logger.severe("cannot create the event log in " + config.eventLogDirectory + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Resumes the game from its snapshot file if it exists, and takes snapshots of the game to it from now on.
+     *
+     * @return - the writer of the snapshots of the game, or null if no snapshot file is configured.
+     */
+    private static SnapshotWriter openSnapshots(Config config, Dealer dealer) {
+        if (config.snapshotFile.isEmpty()) return null;
+        Path file = Paths.get(config.snapshotFile);
+        if (Files.exists(file)) try {
+            long start = System.nanoTime();
+            dealer.restore(Snapshot.load(file));
+            logger.info("resumed the game from " + file + " in "
+                    + TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) + " us");
+        } catch (IOException | IllegalArgumentException e) {
+            logger.severe("cannot resume the game from " + file + ", starting a new game: " + e.getMessage());
+        }
+        SnapshotWriter snapshots = new SnapshotWriter(logger, file, config.snapshotIntervalMillis);
+        dealer.takeSnapshots(snapshots);
+        return snapshots;
+    }
+
+    /**
+     * @return - the writer of the journal of the game, or null if no journal is configured (or it cannot be created).
+     */
+    private static JournalWriter openJournal(Config config, Clock clock, long seed) {
+        if (config.journalFile.isEmpty()) return null;
+        try {
+            return new JournalWriter(logger, config, clock, seed, new FileOutputStream(config.journalFile));
+        } catch (IOException e) {
+            logger.severe("cannot create the journal " + config.journalFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Replays the journal of a game (see Replay), headless or on the user interface, and prints the results.
+     */
+    private static void runReplay(Config config, Util util, String file, double speed, boolean withUi) {
+        Player[] players = new Player[config.players];
+        UserInterface ui = null;
+        if (withUi) try {
+            ui = new UserInterfaceSwing(logger, config, players);
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            logger.severe("error creating swing user interface: " + e.getMessage());
+        }
+        Env env = new Env(logger, config, ui != null ? ui : new NoUserInterface(), util, new VirtualClock(),
+                RandomSource.of(config), Journal.NONE);
+        Table inert = new Table(env); // the key presses on the user interface are ignored
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, null, inert, i, true);
+
+        try (JournalReader reader = new JournalReader(new FileInputStream(file))) {
+            logger.info("replaying " + file + " (seed " + reader.seed + ")");
+            Replay.Result result = new Replay(env).run(reader, speed);
+            logger.severe("replay: " + result);
+            System.out.println(result);
+            if (ui != null && config.endGamePauseMillies > 0) Thread.sleep(config.endGamePauseMillies);
+        } catch (IOException e) {
+            logger.severe("cannot replay " + file + ": " + e.getMessage());
+            System.out.println("Cannot replay " + file + ": " + e.getMessage());
+        } catch (InterruptedException ignored) {
+        } finally {
+            ThreadLogger.logStop(logger, Thread.currentThread().getName());
+            if (ui != null) ui.dispose();
+            for (Handler h : logger.getHandlers()) h.flush();
+        }
+    }
+
+    /**
+     * @return - the value following an option on the command line, or the default value if the option is not given.
+     */
+    private static String argument(String[] args, String option, String defaultValue) {
+        for (int i = 0; i + 1 < args.length; i++)
+            if (args[i].equals(option)) return args[i + 1];
+        return defaultValue;
+    }
+
+    /**
+     * Hosts the configured number of game rooms (see RoomManager), and reports their throughput until all the games
+     * are over.
+     */
+    private static void runRooms(Config config, Util util) {
+        RoomManager rooms = new RoomManager(logger, config, util);
+        for (int i = 0; i < config.rooms; i++)
+            rooms.open();
+        try {
+            while (!rooms.awaitAll(ROOMS_REPORT_SECONDS, TimeUnit.SECONDS))
+                logger.info(rooms.report());
+        } catch (InterruptedException ignored) {
+        } finally {
+            rooms.shutdown();
+            logger.severe(rooms.report());
+            System.out.println(rooms.report());
+            ThreadLogger.logStop(logger, Thread.currentThread().getName());
+            for (Handler h : logger.getHandlers()) h.flush();
+        }
+    }
+
+    /**
+     * @return - the number of games to simulate: given on the command line, or else in the configuration.
+     */
+    private static int simulationGames(String[] args, Config config) {
+        for (int i = 0; i < args.length; i++)
+            if (args[i].equals("--simulate"))
+                return i + 1 < args.length ? Integer.parseInt(args[i + 1]) : Math.max(1, config.simulationGames);
+        return config.simulationGames;
+    }
+
+    /**
+     * Simulates games headless as fast as possible (see Simulation), and prints their summary.
+     */
+    private static void runSimulation(Config config, Util util, int games) {
+        try {
+            Simulation.Summary summary = new Simulation(logger, config, util).run(games);
+            logger.severe("simulation summary:" + System.lineSeparator() + summary);
+            System.out.print(summary);
+        } catch (InterruptedException ignored) {
+        } finally {
+            ThreadLogger.logStop(logger, Thread.currentThread().getName());
             for (Handler h : logger.getHandlers()) h.flush();
         }
     }
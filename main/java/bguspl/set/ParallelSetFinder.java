@@ -0,0 +1,183 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds sets in large collections of cards with a fork/join pool. The range of first cards of the sets (see
+ * SetSpliterator) is split into tasks of about the same amount of work, each collecting its sets into its own buffer,
+ * and the buffers are joined in range order - so the result is the same as that of a sequential search.
+ * When only a few sets are looked for, a task that finds enough of them publishes a cutoff: the tasks (and the parts
+ * of their ranges) that come after it stop, as none of their sets would be reported anyway.
+ */
+public class ParallelSetFinder {
+
+    /**
+     * The number of tasks to split the search into per thread (so threads that finish early can take more work).
+     */
+    private static final int TASKS_PER_THREAD = 8;
+
+    private final Config config;
+
+    /**
+     * The pool the searches run on: the common pool when all the available processors are used, or else a pool of
+     * the finder's own (shut down by close).
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * A set finder per worker thread (the finders keep scratch buffers).
+     */
+    private final ThreadLocal<SetFinder> finder;
+
+    /**
+     * The number of times the range of first cards is halved.
+     */
+    private final int splits;
+
+    public ParallelSetFinder(Config config, CardCodec codec) {
+        this.config = config;
+        pool = config.finderParallelism == Runtime.getRuntime().availableProcessors()
+                ? ForkJoinPool.commonPool() : new ForkJoinPool(config.finderParallelism);
+        finder = ThreadLocal.withInitial(() -> new SetFinder(config, codec));
+        splits = 32 - Integer.numberOfLeadingZeros(config.finderParallelism * TASKS_PER_THREAD - 1);
+    }
+
+    /**
+     * Finds up to count sets in the given array of cards (see Util.findSets).
+     *
+     * @param cards - an array of distinct card ids.
+     * @param n     - the number of cards in the array to search (starting from index 0).
+     * @param count - the maximum number of sets to find (at least one set is looked for).
+     * @return - a list of up to count integer arrays, each one contains the (sorted) card ids of a legal set.
+     */
+    public List<int[]> findSets(int[] cards, int n, int count) {
+        Search search = new Search(cards, n, Math.max(1, count), true);
+        List<int[]> sets = pool.invoke(new Task(search, 0, n, 0)).sets;
+        return sets.size() > search.count ? new ArrayList<>(sets.subList(0, search.count)) : sets;
+    }
+
+    /**
+     * Counts the sets in the given array of cards, without materializing them.
+     *
+     * @param cards - an array of distinct card ids.
+     * @param n     - the number of cards in the array to search (starting from index 0).
+     * @return - the number of legal sets.
+     */
+    public long countSets(int[] cards, int n) {
+        return pool.invoke(new Task(new Search(cards, n, Integer.MAX_VALUE, false), 0, n, 0)).count;
+    }
+
+    /**
+     * Shuts down the pool of the finder, if it has its own (the searches in progress are completed).
+     */
+    public void close() {
+        if (pool != ForkJoinPool.commonPool()) pool.shutdown();
+    }
+
+    /**
+     * The data shared by all the tasks of a single search.
+     */
+    private class Search {
+
+        final int[] cards;
+        final int n;
+        final int[] position;
+        final int count;
+        final boolean collect;
+
+        /**
+         * The index of the first card from which no sets are needed anymore.
+         */
+        final AtomicInteger cutoff;
+
+        Search(int[] cards, int n, int count, boolean collect) {
+            this.cards = cards;
+            this.n = n;
+            this.count = count;
+            this.collect = collect;
+            position = new int[config.deckSize];
+            Arrays.fill(position, -1);
+            for (int i = 0; i < n; ++i)
+                position[cards[i]] = i;
+            cutoff = new AtomicInteger(n);
+        }
+
+        /**
+         * Lowers the cutoff to the given index (if it is lower).
+         */
+        void cut(int index) {
+            cutoff.accumulateAndGet(index, Math::min);
+        }
+    }
+
+    /**
+     * The sets (or the number of sets) found by a task, which is also the buffer its sets are collected into.
+     */
+    private static class Result implements SetFinder.SetConsumer {
+
+        final List<int[]> sets = new ArrayList<>();
+        long count;
+
+        @Override
+        public boolean accept(int[] set) {
+            int[] cards = Arrays.copyOf(set, set.length);
+            Arrays.sort(cards);
+            sets.add(cards);
+            return true;
+        }
+    }
+
+    /**
+     * Finds the sets whose first cards are in a range of indices.
+     */
+    private class Task extends RecursiveTask<Result> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Search search;
+        private final int from;
+        private final int to;
+        private final int level;
+
+        Task(Search search, int from, int to, int level) {
+            this.search = search;
+            this.from = from;
+            this.to = to;
+            this.level = level;
+        }
+
+        @Override
+        protected Result compute() {
+            if (from >= search.cutoff.get()) return new Result();
+
+            if (level < splits && to - from >= 2) {
+                int middle = SetSpliterator.middle(search.n, from, to, SetSpliterator.exponent(config));
+                Task second = new Task(search, middle, to, level + 1);
+                second.fork();
+                Result result = new Task(search, from, middle, level + 1).compute();
+                Result rest = second.join();
+                result.count += rest.count;
+                if (result.sets.size() < search.count) result.sets.addAll(rest.sets);
+                return result;
+            }
+
+            Result result = new Result();
+            SetFinder.SetConsumer consumer = search.collect ? result : set -> true;
+            SetFinder finder = ParallelSetFinder.this.finder.get();
+            for (int first = from; first < to && first < search.cutoff.get(); ++first) {
+                result.count += finder.findSetsWith(search.cards[first], search.cards, first + 1, search.n,
+                        search.position, consumer);
+                if (result.count >= search.count) {
+                    search.cut(first + 1);
+                    break;
+                }
+            }
+            return result;
+        }
+    }
+}
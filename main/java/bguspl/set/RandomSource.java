@@ -0,0 +1,80 @@
+package bguspl.set;
+
+import java.util.Random;
+
+/**
+ * A hierarchy of seeded random generators: every random source of a game (the dealer's deck and dealing order, the
+ * key presses of every computer player) gets its own generator, whose seed is derived from the seed of the game and
+ * the identity of the source only. So a game with the same seed draws the same random values in every source,
+ * regardless of the order in which the sources are created or of how the threads of the game interleave.
+ * The rooms of a server (or the games of a simulation) get child sources, derived the same way.
+ */
+public class RandomSource {
+
+    /*
+     * The streams of the sources of a game.
+     */
+    private static final long DEALER = 0;
+    private static final long PLAYERS = 1;
+    private static final long CHILDREN = 1L << 32;
+
+    private final long seed;
+
+    /**
+     * @param seed - the seed of the source.
+     */
+    public RandomSource(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Creates the random source of a game.
+     *
+     * @param config - the game configuration.
+     * @return - a source with the configured seed, or with a random seed if none is configured.
+     */
+    public static RandomSource of(Config config) {
+        return new RandomSource(config.seed != 0 ? config.seed : new Random().nextLong());
+    }
+
+    /**
+     * @return - the seed of the source (to reproduce it).
+     */
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * @return - the generator of the dealer.
+     */
+    public Random dealer() {
+        return new Random(mix(DEALER));
+    }
+
+    /**
+     * @param player - the id of the player.
+     * @return - the generator of the key presses of a computer player.
+     */
+    public Random player(int player) {
+        return new Random(mix(PLAYERS + player));
+    }
+
+    /**
+     * @param id - the id of the child (e.g. of a game room).
+     * @return - the source of a child game.
+     */
+    public RandomSource child(long id) {
+        return new RandomSource(mix(CHILDREN + id));
+    }
+
+    /**
+     * Derives the seed of a stream from the seed of the source (the finalizer of the SplitMix64 generator, so close
+     * streams get unrelated seeds).
+     */
+    private long mix(long stream) {
+        long z = seed + (stream + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
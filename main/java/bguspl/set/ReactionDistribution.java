@@ -0,0 +1,23 @@
+package bguspl.set;
+
+/**
+ * The distributions of the reaction times of the computer players (see bguspl.set.ex.AiSkill).
+ */
+public enum ReactionDistribution {
+    /**
+     * Always the mean.
+     */
+    FIXED,
+    /**
+     * Uniform within the jitter around the mean.
+     */
+    UNIFORM,
+    /**
+     * Normal around the mean, with the jitter as the standard deviation.
+     */
+    GAUSSIAN,
+    /**
+     * Exponential with the mean (the jitter is ignored).
+     */
+    EXPONENTIAL
+}
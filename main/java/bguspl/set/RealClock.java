@@ -0,0 +1,76 @@
+package bguspl.set;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The wall-clock time (the clock of regular games). Every game has its own clock, so its idle participants are woken
+ * only by the participants of the same game.
+ * <p>
+ * An idle participant waits until another participant of the game starts to wait (in sleep, poll or idle), offers an
+ * element to a queue or signals the clock: the state its condition depends on is changed by the participants between
+ * their waits (as in the virtual clock), so it checks its condition again then. The waits use a lock and a condition
+ * rather than a monitor, so an idle virtual thread does not pin its carrier thread.
+ */
+public final class RealClock implements Clock {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    @Override
+    public long millis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        signal();
+        Thread.sleep(millis);
+    }
+
+    @Override
+    public <E> E poll(BlockingQueue<E> queue, long timeout) throws InterruptedException {
+        signal();
+        return timeout == Long.MAX_VALUE ? queue.take() : queue.poll(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public <E> boolean offer(BlockingQueue<E> queue, E element) {
+        boolean added = queue.offer(element);
+        if (added) signal();
+        return added;
+    }
+
+    @Override
+    public void idle(BooleanSupplier condition) throws InterruptedException {
+        lock.lock();
+        try {
+            changed.signalAll(); // the other idle participants may depend on what this one did since it last waited
+            while (!condition.getAsBoolean())
+                changed.await();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void signal() {
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void register() {
+    }
+
+    @Override
+    public void unregister() {
+    }
+}
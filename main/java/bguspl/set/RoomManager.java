@@ -0,0 +1,238 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.DealerTimer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hosts many game rooms in a single process. Every room is an isolated game of computer players, without a user
+ * interface: it has its own environment, table, dealer and players (so the rooms never contend on each other's
+ * claims). The rooms share:
+ * - a bounded pool of workers that run the dealers (a room waits for a free worker before it starts, so the threads
+ * of its players exist only while it is played),
+ * - a single scheduler thread for the timers of all the rooms,
+ * - the configuration and the card utilities.
+ */
+public class RoomManager {
+
+    private final Logger logger;
+    private final Config config;
+    private final Util util;
+    private final Supplier<Clock> clocks;
+
+    /**
+     * The source of the random sources of the rooms (every room gets the child source of its id).
+     */
+    private final RandomSource random;
+
+    private final ExecutorService workers;
+    private final ScheduledExecutorService timers;
+
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * The rooms that were opened and did not finish yet.
+     */
+    private final Queue<Room> open = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Totals of the rooms that finished.
+     */
+    private final AtomicLong finishedRooms = new AtomicLong();
+    private final AtomicLong finishedClaims = new AtomicLong();
+
+    private final long start = System.nanoTime();
+
+    /**
+     * A game room.
+     */
+    public static class Room {
+
+        public final int id;
+        public final Env env;
+        public final Table table;
+        public final Dealer dealer;
+        public final Player[] players;
+
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        private Room(int id, Env env, Table table, Dealer dealer, Player[] players) {
+            this.id = id;
+            this.env = env;
+            this.table = table;
+            this.dealer = dealer;
+            this.players = players;
+        }
+
+        /**
+         * Waits until the game of the room is over.
+         */
+        public void await() throws InterruptedException {
+            finished.await();
+        }
+
+        public boolean isFinished() {
+            return finished.getCount() == 0;
+        }
+    }
+
+    /**
+     * @param logger - the logger of the rooms.
+     * @param config - the configuration of the games (all the players are computer players).
+     * @param util   - the card utilities (shared by all the rooms).
+     */
+    public RoomManager(Logger logger, Config config, Util util) {
+        this(logger, config, util, () -> Clock.of(config));
+    }
+
+    /**
+     * @param clocks - creates the clock of each room (e.g. a virtual clock, to play the games as fast as possible).
+     */
+    public RoomManager(Logger logger, Config config, Util util, Supplier<Clock> clocks) {
+        this.logger = logger;
+        this.config = config;
+        this.util = util;
+        this.clocks = clocks;
+        random = RandomSource.of(config);
+        logger.info("rooms seed: " + random.seed());
+        AtomicInteger workerIds = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(config.roomWorkers, runnable -> Threads.newThread(config, runnable,
+                "room-worker-" + workerIds.incrementAndGet()));
+        timers = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "room-timers");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a new room: its game starts as soon as a worker is free.
+     *
+     * @return - the room.
+     */
+    public Room open() {
+        int id = nextId.incrementAndGet();
+        Env env = new Env(logger, config, new NoUserInterface(), util, clocks.get(), random.child(id), Journal.NONE);
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players, new DealerTimer(env, timers));
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        Room room = new Room(id, env, table, dealer, players);
+        open.add(room);
+        workers.execute(() -> play(room));
+        return room;
+    }
+
+    /**
+     * Plays the game of a room (on a worker thread).
+     */
+    private void play(Room room) {
+        try {
+            if (!workers.isShutdown()) room.dealer.run();
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "room " + room.id + " failed", e);
+        } finally {
+            room.dealer.terminate();//a dealer that failed did not stop the threads of its players
+            for (Player player : room.players)
+                player.terminate();
+            finishedClaims.addAndGet(room.dealer.claimStats().claims());
+            finishedRooms.incrementAndGet();
+            open.remove(room);
+            room.finished.countDown();
+        }
+    }
+
+    /**
+     * Waits until the games of all the rooms opened so far are over.
+     */
+    public void awaitAll() throws InterruptedException {
+        for (Room room : open)
+            room.await();
+    }
+
+    /**
+     * Waits until the games of all the rooms opened so far are over, or the timeout elapses.
+     *
+     * @return - true iff all the games are over.
+     */
+    public boolean awaitAll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Room room : open)
+            if (!room.finished.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) return false;
+        return true;
+    }
+
+    /**
+     * Terminates the games of all the open rooms (rooms that did not start will not start), and stops the workers.
+     */
+    public void shutdown() {
+        workers.shutdown();
+        for (Room room : open)
+            room.dealer.terminate();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS))
+                logger.severe("some rooms did not terminate");
+        } catch (InterruptedException ignored) {
+        }
+        timers.shutdownNow();
+    }
+
+    /**
+     * @return - the number of rooms whose games are over.
+     */
+    public long finishedRooms() {
+        return finishedRooms.get();
+    }
+
+    /**
+     * @return - the number of claims checked in all the rooms (including the open ones).
+     */
+    public long claims() {
+        long claims = finishedClaims.get();
+        for (Room room : open)
+            claims += room.dealer.claimStats().claims();
+        return claims;
+    }
+
+    private double seconds() {
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    /**
+     * @return - the average number of rooms finished per second since the manager was created.
+     */
+    public double roomsPerSecond() {
+        return finishedRooms() / seconds();
+    }
+
+    /**
+     * @return - the average number of claims checked per second, in all the rooms.
+     */
+    public double claimsPerSecond() {
+        return claims() / seconds();
+    }
+
+    /**
+     * @return - a summary of the throughput of the rooms.
+     */
+    public String report() {
+        return String.format("%d rooms finished, %d open (%.2f rooms/sec); %d claims (%.1f claims/sec)",
+                finishedRooms(), open.size(), roomsPerSecond(), claims(), claimsPerSecond());
+    }
+}
@@ -0,0 +1,357 @@
+package bguspl.set;
+
+import java.util.Arrays;
+
+/**
+ * Finds legal sets by completion rather than by testing every combination of cards.
+ * For featureSize >= 3, any featureSize - 1 distinct cards are completed into a legal set by at most one card: for
+ * each feature, the values of the given cards must be either all the same (and the missing card shares it) or all
+ * different (and the missing card has the one value left). So instead of testing all C(n, featureSize) combinations
+ * we compute the completion of every (featureSize - 1)-combination and look it up in a card-presence table, which is
+ * O(n^2) for the default 3-feature-values deck, with no allocations per candidate.
+ * Note: the finder keeps scratch buffers, so each thread should use its own instance.
+ */
+public class SetFinder {
+
+    /**
+     * Receives the sets found by the finder.
+     */
+    public interface SetConsumer {
+
+        /**
+         * Called for every set found.
+         *
+         * @param set - the cards of the set, in the order of their positions in the searched array. This is a
+         *            scratch buffer of the finder - copy it in order to keep it.
+         * @return - true iff the search should go on.
+         */
+        boolean accept(int[] set);
+    }
+
+    private final int featureSize;
+    private final int featureCount;
+
+    /**
+     * Packs the cards for completing them with bitwise operations (if they can be packed).
+     */
+    private final CardCodec codec;
+
+    /**
+     * The total number of cards in the deck.
+     */
+    private final int deckSize;
+
+    /**
+     * True iff sets can be found by completion (i.e. completions are unique and fit the bitmask of seen values).
+     */
+    private final boolean completable;
+
+    /**
+     * Mapping between a card and its index in the searched array (-1 if absent), allocated on the first search.
+     */
+    private int[] position;
+
+    /**
+     * The indices of the current combination (in the searched array).
+     */
+    private final int[] indices;
+
+    /**
+     * The cards of the current combination.
+     */
+    private final int[] set;
+
+    /**
+     * Scratch space for the feature decoding of complete.
+     */
+    private final int[] quotients;
+
+    /**
+     * The output array of the current findSets call (and the number of sets written to it).
+     */
+    private int[] out;
+    private int written;
+
+    /**
+     * Copies the sets found into the output array (sorted), so no consumer has to be allocated per call.
+     */
+    private final SetConsumer collector;
+
+    public SetFinder(Config config) {
+        this(config, new CardCodec(config));
+    }
+
+    /**
+     * @param config - the game configuration.
+     * @return - true iff the sets of the configuration are found by completion.
+     */
+    static boolean completable(Config config) {
+        return config.featureSize >= 3 && config.featureSize < Long.SIZE && config.featureCount > 0;
+    }
+
+    public SetFinder(Config config, CardCodec codec) {
+        this.codec = codec;
+        featureSize = config.featureSize;
+        featureCount = config.featureCount;
+        deckSize = config.deckSize;
+        completable = completable(config);
+        indices = new int[Math.max(featureSize, 1)];
+        set = new int[Math.max(featureSize, 1)];
+        quotients = new int[Math.max(featureSize, 1)];
+        collector = set -> {
+            int base = written++ * set.length;
+            for (int i = 0; i < set.length; ++i) {
+                int card = set[i], j = base + i;
+                for (; j > base && out[j - 1] > card; --j)
+                    out[j] = out[j - 1];
+                out[j] = card;
+            }
+            return true;
+        };
+    }
+
+    /**
+     * Computes the card that completes featureSize - 1 cards into a legal set.
+     *
+     * @param cards  - an array of card ids.
+     * @param offset - the index of the first card in the array.
+     * @param length - the number of cards (should be featureSize - 1).
+     * @return - the id of the completing card, or -1 if there is none (or the completion is not unique).
+     */
+    public int complete(int[] cards, int offset, int length) {
+        if (!completable || length != featureSize - 1) return -1;
+        if (codec.packable) return codec.complete(cards, offset, length);
+
+        if (featureSize == 3) {
+            int a = cards[offset], b = cards[offset + 1], card = 0, weight = 1;
+            for (int i = 0; i < featureCount; ++i) {
+                int x = a % 3, y = b % 3;
+                card += (x == y ? x : 3 - x - y) * weight;
+                a /= 3;
+                b /= 3;
+                weight *= 3;
+            }
+            return card;
+        }
+
+        System.arraycopy(cards, offset, quotients, 0, length);
+        int allValues = featureSize * (featureSize - 1) / 2;
+        int card = 0, weight = 1;
+        for (int i = 0; i < featureCount; ++i) {
+            long seen = 0;
+            int first = quotients[0] % featureSize, sum = 0;
+            boolean sameSame = true;
+            for (int j = 0; j < length; ++j) {
+                int value = quotients[j] % featureSize;
+                quotients[j] /= featureSize;
+                sameSame &= value == first;
+                seen |= 1L << value;
+                sum += value;
+            }
+            if (sameSame) card += first * weight;
+            else if (Long.bitCount(seen) == length) card += (allValues - sum) * weight;
+            else return -1;
+            weight *= featureSize;
+        }
+        return card;
+    }
+
+    /**
+     * Finds up to count sets in the given array of cards. The sets are reported in the lexicographic order of the
+     * positions of their cards, which is the order in which they would be found by iterating over all combinations.
+     *
+     * @param cards    - an array of distinct card ids.
+     * @param n        - the number of cards in the array to search (starting from index 0).
+     * @param count    - the maximum number of sets to find (at least one set is looked for).
+     * @param consumer - receives the sets found.
+     * @return - the number of sets found.
+     */
+    public int findSets(int[] cards, int n, int count, SetConsumer consumer) {
+        if (!completable) return enumerateSets(cards, n, count, consumer);
+
+        int r = featureSize - 1;
+        if (n < featureSize) return 0;
+
+        if (position == null) {
+            position = new int[deckSize];
+            Arrays.fill(position, -1);
+        }
+        for (int i = 0; i < n; ++i)
+            position[cards[i]] = i;
+
+        int found = 0;
+        try {
+            for (int i = 0; i < r; ++i) {
+                indices[i] = i;
+                set[i] = cards[i];
+            }
+
+            // the last index of the tuple is never n - 1, as its completion should come after it
+            while (indices[r - 1] < n - 1) {
+                int card = complete(set, 0, r);
+                if (card >= 0 && card < deckSize && position[card] > indices[r - 1]) {
+                    set[r] = card;
+                    ++found;
+                    if (!consumer.accept(set) || found >= count) return found;
+                }
+
+                // generate next tuple in lexicographic order
+                int t = r - 1;
+                while (t != 0 && indices[t] == n - 1 - r + t) --t;
+                indices[t]++;
+                set[t] = cards[indices[t]];
+                for (int i = t + 1; i < r; i++) {
+                    indices[i] = indices[i - 1] + 1;
+                    set[i] = cards[indices[i]];
+                }
+            }
+        } finally {
+            for (int i = 0; i < n; ++i)
+                position[cards[i]] = -1;
+        }
+        return found;
+    }
+
+    /**
+     * Finds up to count sets in the given array of cards, and writes their (sorted) card ids to an array.
+     *
+     * @param cards - an array of distinct card ids.
+     * @param n     - the number of cards in the array to search (starting from index 0).
+     * @param count - the maximum number of sets to find.
+     * @param out   - an array of at least count * featureSize entries to fill with the sets found.
+     * @return - the number of sets found.
+     */
+    public int findSets(int[] cards, int n, int count, int[] out) {
+        if (count <= 0) return 0;
+        this.out = out;
+        written = 0;
+        try {
+            return findSets(cards, n, count, collector);
+        } finally {
+            this.out = null;
+        }
+    }
+
+    /**
+     * Finds all the sets made of the given card and featureSize - 1 of the given cards. Every set is reported once,
+     * with the given card first.
+     *
+     * @param card     - a card id (that is not in the array).
+     * @param cards    - an array of distinct card ids.
+     * @param n        - the number of cards in the array (starting from index 0).
+     * @param position - mapping between a card and its index in the array (-1 if absent), kept by the caller.
+     * @param consumer - receives the sets found.
+     * @return - the number of sets found.
+     */
+    public int findSetsWith(int card, int[] cards, int n, int[] position, SetConsumer consumer) {
+        return findSetsWith(card, cards, 0, n, position, consumer);
+    }
+
+    /**
+     * Finds all the sets made of the given card and featureSize - 1 of the given cards, from index from onwards.
+     * Every set is reported once, with the given card first, in the lexicographic order of the positions of the
+     * other cards.
+     *
+     * @param card     - a card id (that is not in the array from index from onwards).
+     * @param cards    - an array of distinct card ids.
+     * @param from     - the index of the first card in the array that may be picked.
+     * @param n        - the number of cards in the array (starting from index 0).
+     * @param position - mapping between a card and its index in the array (-1 if absent), kept by the caller.
+     * @param consumer - receives the sets found.
+     * @return - the number of sets found.
+     */
+    public int findSetsWith(int card, int[] cards, int from, int n, int[] position, SetConsumer consumer) {
+        int r = featureSize - 1; // the number of cards to pick from the array for each candidate
+        if (r < 0 || n - from < r) return 0;
+
+        int found = 0;
+        set[0] = card;
+        if (r == 0) {
+            if (isSet(set, 0, 1)) {
+                ++found;
+                consumer.accept(set);
+            }
+            return found;
+        }
+
+        for (int i = 0; i < r; ++i)
+            indices[i] = from + i;
+
+        // when completing, the last card picked is the completion itself
+        int picked = completable ? r - 1 : r;
+        int last = completable ? n - 1 : n;
+        while (indices[picked - 1] < last) {
+            for (int i = 0; i < picked; ++i)
+                set[i + 1] = cards[indices[i]];
+            if (completable) {
+                int completion = complete(set, 0, r);
+                if (completion >= 0 && completion < deckSize
+                        && position[completion] > indices[picked - 1]) {
+                    set[r] = completion;
+                    ++found;
+                    if (!consumer.accept(set)) return found;
+                }
+            } else if (isSet(set, 0, r + 1)) {
+                ++found;
+                if (!consumer.accept(set)) return found;
+            }
+
+            // generate next combination in lexicographic order
+            int t = picked - 1;
+            while (t != 0 && indices[t] == last - picked + t) --t;
+            indices[t]++;
+            for (int i = t + 1; i < picked; i++) indices[i] = indices[i - 1] + 1;
+        }
+        return found;
+    }
+
+    /**
+     * Finds sets by testing every combination of featureSize cards (used when completions are not unique).
+     */
+    private int enumerateSets(int[] cards, int n, int count, SetConsumer consumer) {
+        int r = featureSize;
+        if (r <= 0 || n < r) return 0;
+
+        int found = 0;
+        for (int i = 0; i < r; ++i)
+            indices[i] = i;
+
+        while (indices[r - 1] < n) {
+            for (int i = 0; i < r; ++i)
+                set[i] = cards[indices[i]];
+            if (isSet(set, 0, r)) {
+                ++found;
+                if (!consumer.accept(set) || found >= count) return found;
+            }
+
+            // generate next combination in lexicographic order
+            int t = r - 1;
+            while (t != 0 && indices[t] == n - r + t) --t;
+            indices[t]++;
+            for (int i = t + 1; i < r; i++) indices[i] = indices[i - 1] + 1;
+        }
+        return found;
+    }
+
+    /**
+     * Checks if the given cards form a legal set (every feature is either the same in all cards or different in all
+     * cards), without allocating.
+     */
+    private boolean isSet(int[] cards, int offset, int length) {
+        System.arraycopy(cards, offset, quotients, 0, length);
+        for (int i = 0; i < featureCount; ++i) {
+            boolean sameSame = true, butDifferent = true;
+            int first = quotients[0] % featureSize;
+            for (int j = 0; j < length; ++j) {
+                int value = quotients[j] % featureSize;
+                if (value != first) sameSame = false;
+                for (int k = 0; k < j; ++k)
+                    if (quotients[k] % featureSize == value) butDifferent = false;
+            }
+            for (int j = 0; j < length; ++j)
+                quotients[j] /= featureSize;
+            if (sameSame == butDifferent) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,128 @@
+package bguspl.set;
+
+import java.util.Arrays;
+
+/**
+ * A live index of the legal sets within a changing collection of cards.
+ * Adding or removing a card only completes the sets that include it (O(n) for the default 3-feature-values deck), so
+ * the number of sets in the collection, and the number of sets each card belongs to, can be read in O(1).
+ * Note: the index is not thread safe for writing - it should be updated by a single thread.
+ */
+public class SetIndex {
+
+    private final SetFinder finder;
+
+    /**
+     * The cards in the collection (the first size entries).
+     */
+    private final int[] cards;
+    private int size;
+
+    /**
+     * Mapping between a card and its index in the cards array (-1 if not in the collection).
+     */
+    private final int[] position;
+
+    /**
+     * Mapping between a card and the number of sets in the collection it belongs to.
+     */
+    private final int[] memberships;
+
+    /**
+     * The number of sets in the collection.
+     */
+    private volatile long sets;
+
+    /**
+     * Update the memberships of the cards of a set that was added to/removed from the collection.
+     */
+    private final SetFinder.SetConsumer addSet;
+    private final SetFinder.SetConsumer removeSet;
+
+    public SetIndex(Config config) {
+        finder = new SetFinder(config);
+        cards = new int[config.deckSize];
+        position = new int[config.deckSize];
+        memberships = new int[config.deckSize];
+        Arrays.fill(position, -1);
+        addSet = set -> {
+            for (int card : set)
+                memberships[card]++;
+            return true;
+        };
+        removeSet = set -> {
+            for (int card : set)
+                memberships[card]--;
+            return true;
+        };
+    }
+
+    /**
+     * Adds a card to the collection (does nothing if it is already there).
+     *
+     * @param card - the card id to add.
+     */
+    public void add(int card) {
+        if (position[card] >= 0) return;
+        sets += finder.findSetsWith(card, cards, size, position, addSet);
+        position[card] = size;
+        cards[size++] = card;
+    }
+
+    /**
+     * Removes a card from the collection (does nothing if it is not there).
+     *
+     * @param card - the card id to remove.
+     */
+    public void remove(int card) {
+        int index = position[card];
+        if (index < 0) return;
+        int moved = cards[--size];
+        cards[index] = moved;
+        position[moved] = index;
+        position[card] = -1;
+        sets -= finder.findSetsWith(card, cards, size, position, removeSet);
+    }
+
+    /**
+     * Removes all the cards from the collection.
+     */
+    public void clear() {
+        for (int i = 0; i < size; ++i) {
+            position[cards[i]] = -1;
+            memberships[cards[i]] = 0;
+        }
+        size = 0;
+        sets = 0;
+    }
+
+    /**
+     * @param card - a card id.
+     * @return - true iff the card is in the collection.
+     */
+    public boolean contains(int card) {
+        return position[card] >= 0;
+    }
+
+    /**
+     * @return - the number of cards in the collection.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return - the number of legal sets in the collection.
+     */
+    public long countSets() {
+        return sets;
+    }
+
+    /**
+     * @param card - a card id.
+     * @return - the number of legal sets in the collection the card belongs to.
+     */
+    public int countSets(int card) {
+        return memberships[card];
+    }
+}
@@ -0,0 +1,163 @@
+package bguspl.set;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A lazy source of the legal sets in an array of cards. The sets are found one first card at a time (i.e. all the
+ * sets whose first card, in array order, is the next card), so only the sets of a single first card are held at once,
+ * and the range of first cards left can be split between threads. The sets are reported in the same order as by
+ * Util.findSets, each in a new sorted array.
+ */
+public class SetSpliterator implements Spliterator<int[]> {
+
+    private final Config config;
+    private final CardCodec codec;
+
+    /**
+     * A copy of the searched cards, and the mapping between a card and its index in it (shared by all the splits).
+     */
+    private final int[] cards;
+    private final int[] position;
+
+    /**
+     * The range of the indices of the first cards of the sets left to find.
+     */
+    private int next;
+    private int end;
+
+    /**
+     * The sets of the last first card that were not reported yet.
+     */
+    private final ArrayDeque<int[]> pending = new ArrayDeque<>();
+
+    /**
+     * The finder of this split (created on the first search).
+     */
+    private SetFinder finder;
+    private final SetFinder.SetConsumer buffer = set -> pending.add(sorted(set));
+
+    /**
+     * @param config - the game configuration.
+     * @param codec  - the packed cards of the configuration.
+     * @param cards  - an array of distinct card ids (it is copied, so it may be changed later).
+     * @param n      - the number of cards in the array to search (starting from index 0).
+     */
+    public SetSpliterator(Config config, CardCodec codec, int[] cards, int n) {
+        this.config = config;
+        this.codec = codec;
+        this.cards = Arrays.copyOf(cards, n);
+        position = new int[config.deckSize];
+        Arrays.fill(position, -1);
+        for (int i = 0; i < n; ++i)
+            position[cards[i]] = i;
+        next = 0;
+        end = n;
+    }
+
+    private SetSpliterator(SetSpliterator split, int next, int end) {
+        config = split.config;
+        codec = split.codec;
+        cards = split.cards;
+        position = split.position;
+        this.next = next;
+        this.end = end;
+    }
+
+    private static int[] sorted(int[] set) {
+        int[] cards = Arrays.copyOf(set, set.length);
+        Arrays.sort(cards);
+        return cards;
+    }
+
+    private SetFinder finder() {
+        if (finder == null) finder = new SetFinder(config, codec);
+        return finder;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super int[]> action) {
+        while (pending.isEmpty() && next < end) {
+            int first = next++;
+            finder().findSetsWith(cards[first], cards, first + 1, cards.length, position, buffer);
+        }
+        if (pending.isEmpty()) return false;
+        action.accept(pending.poll());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super int[]> action) {
+        while (!pending.isEmpty())
+            action.accept(pending.poll());
+        SetFinder.SetConsumer report = set -> {
+            action.accept(sorted(set));
+            return true;
+        };
+        while (next < end) {
+            int first = next++;
+            finder().findSetsWith(cards[first], cards, first + 1, cards.length, position, report);
+        }
+    }
+
+    /**
+     * Splits the range of first cards left in two halves of about the same amount of work (the number of candidates
+     * of a first card falls with its index). The sets already found and not reported yet go to the first half, as
+     * they come before all the sets of its range.
+     */
+    @Override
+    public Spliterator<int[]> trySplit() {
+        if (end - next < 2) return null;
+        int middle = middle(cards.length, next, end, exponent(config));
+        SetSpliterator prefix = new SetSpliterator(this, next, middle);
+        prefix.pending.addAll(pending);
+        pending.clear();
+        next = middle;
+        return prefix;
+    }
+
+    /**
+     * Splits a range of first cards in two halves of about the same amount of work.
+     *
+     * @param n        - the number of cards searched.
+     * @param next     - the first index of the range.
+     * @param end      - the end of the range (exclusive, at least next + 2).
+     * @param exponent - the number of cards picked per candidate (see exponent).
+     * @return - the first index of the second half.
+     */
+    static int middle(int n, int next, int end, double exponent) {
+        double before = Math.pow(n - next, exponent), after = Math.pow(n - end, exponent);
+        int middle = n - (int) Math.round(Math.pow((before + after) / 2, 1 / exponent));
+        return Math.max(next + 1, Math.min(end - 1, middle));
+    }
+
+    /**
+     * Estimates the number of sets left by the number of candidates left (featureSize - 1 cards if completing,
+     * featureSize otherwise) and the chance that a completion is among the cards.
+     */
+    @Override
+    public long estimateSize() {
+        if (next >= end) return pending.size();
+        double exponent = exponent(config);
+        double candidates = Math.pow(cards.length - next, exponent) - Math.pow(cards.length - end, exponent);
+        for (int i = 2; i <= exponent; ++i)
+            candidates /= i;
+        if (exponent < config.featureSize) candidates *= (double) cards.length / config.deckSize;
+        return pending.size() + Math.max(1, (long) Math.min(candidates, Long.MAX_VALUE / 2));
+    }
+
+    /**
+     * @return - the number of cards picked per candidate (the number of candidates of the first cards from index i
+     * onwards is about (n - i) to that power).
+     */
+    static double exponent(Config config) {
+        return Math.max(1, SetFinder.completable(config) ? config.featureSize - 1 : config.featureSize);
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | NONNULL | IMMUTABLE;
+    }
+}
@@ -0,0 +1,177 @@
+package bguspl.set;
+
+import bguspl.set.ex.Player;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * Simulates games of computer players as fast as the hardware allows, to evaluate rule and timing configurations:
+ * the games are played headless (without AWT or the logging user interface) in game rooms (see RoomManager), on
+ * virtual time (so the freezes, table delays and turn timeouts take no wall-clock time, but keep their effect on the
+ * game). Config.roomWorkers games are played at a time (1 to play them back to back).
+ */
+public class Simulation {
+
+    private final Logger logger;
+    private final Config config;
+    private final Util util;
+
+    /**
+     * @param logger - the logger of the games.
+     * @param config - the configuration of the games (all the players are computer players).
+     * @param util   - the card utilities.
+     */
+    public Simulation(Logger logger, Config config, Util util) {
+        this.logger = logger;
+        this.config = config;
+        this.util = util;
+    }
+
+    /**
+     * Plays games until all are over.
+     *
+     * @param games - the number of games to play.
+     * @return - the summary of the games.
+     * @throws InterruptedException - if the calling thread is interrupted (the open games are terminated).
+     */
+    public Summary run(int games) throws InterruptedException {
+        long cpuStart = processCpuNanos();
+        long start = System.nanoTime();
+        RoomManager rooms = new RoomManager(logger, config, util, VirtualClock::new);
+        List<RoomManager.Room> played = new ArrayList<>(games);
+        try {
+            for (int i = 0; i < games; i++)
+                played.add(rooms.open());
+            rooms.awaitAll();
+        } finally {
+            rooms.shutdown();
+        }
+        long cpu = processCpuNanos();
+        return new Summary(config, played, System.nanoTime() - start, cpu < 0 ? -1 : cpu - cpuStart);
+    }
+
+    /**
+     * @return - the cpu time used by the process so far (in nanoseconds), or -1 if the jvm does not report it.
+     */
+    private static long processCpuNanos() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean)
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        return -1;
+    }
+
+    /**
+     * The results of the simulated games.
+     */
+    public static class Summary {
+
+        public final int games;
+        public final long wallNanos;
+
+        /**
+         * The cpu time of the whole process during the simulation (-1 if unknown).
+         */
+        public final long cpuNanos;
+
+        /**
+         * The number of legal sets and of all the claims made in all the games.
+         */
+        public final long sets;
+        public final long claims;
+
+        /**
+         * The (virtual) length of every game, and the final score of every player in every game.
+         */
+        public final long[] gameMillis;
+        public final int[][] scores;
+
+        private final String[] playerNames;
+
+        private Summary(Config config, List<RoomManager.Room> rooms, long wallNanos, long cpuNanos) {
+            this.games = rooms.size();
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            gameMillis = new long[games];
+            scores = new int[games][config.players];
+            long sets = 0, claims = 0;
+            for (int game = 0; game < games; game++) {
+                RoomManager.Room room = rooms.get(game);
+                sets += room.dealer.claimStats().legal();
+                claims += room.dealer.claimStats().claims();
+                gameMillis[game] = room.env.clock.millis();
+                Player[] players = room.players;
+                for (int player = 0; player < players.length; player++)
+                    scores[game][player] = players[player].score();
+            }
+            this.sets = sets;
+            this.claims = claims;
+            playerNames = config.playerNames;
+        }
+
+        private double seconds() {
+            return wallNanos / 1e9;
+        }
+
+        public double gamesPerSecond() {
+            return games / seconds();
+        }
+
+        public double setsPerSecond() {
+            return sets / seconds();
+        }
+
+        /**
+         * @return - the average cpu time of a game (in milliseconds), or -1 if unknown.
+         */
+        public double cpuMillisPerGame() {
+            return cpuNanos < 0 || games == 0 ? -1 : cpuNanos / 1e6 / games;
+        }
+
+        /**
+         * @return - the number of games won by every player (a tie counts as a win of every tied player).
+         */
+        public int[] wins() {
+            int[] wins = new int[playerNames.length];
+            for (int[] game : scores) {
+                int max = Integer.MIN_VALUE;
+                for (int score : game) max = Math.max(max, score);
+                for (int player = 0; player < game.length; player++)
+                    if (game[player] == max) wins[player]++;
+            }
+            return wins;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%d games in %.2f sec (%.2f games/sec)%n", games, seconds(), gamesPerSecond()));
+            sb.append(String.format("%d sets (%.1f sets/sec, %.2f per game), %d claims%n",
+                    sets, setsPerSecond(), games == 0 ? 0 : (double) sets / games, claims));
+            if (cpuNanos >= 0)
+                sb.append(String.format("cpu time: %.1f ms per game%n", cpuMillisPerGame()));
+            long totalMillis = 0;
+            for (long millis : gameMillis) totalMillis += millis;
+            sb.append(String.format("game time: %.1f sec per game (virtual)%n",
+                    games == 0 ? 0 : totalMillis / 1e3 / games));
+
+            int[] wins = wins();
+            for (int player = 0; player < wins.length; player++) {
+                Map<Integer, Integer> histogram = new TreeMap<>();
+                long total = 0;
+                for (int[] game : scores) {
+                    histogram.merge(game[player], 1, Integer::sum);
+                    total += game[player];
+                }
+                sb.append(String.format("%s: %d wins, mean score %.2f, scores (score=games) %s%n", playerNames[player],
+                        wins[player], games == 0 ? 0 : (double) total / games, histogram));
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package bguspl.set;
+
+import java.lang.reflect.Method;
+
+/**
+ * Creates the threads of the players, of the computer players and of the room workers: platform threads, or virtual
+ * threads if the configuration asks for them (see Config.virtualThreads).
+ * <p>
+ * The virtual threads are created through reflection (Thread.ofVirtual), so the game builds for Java 17; asking for
+ * them on a JDK without them fails (Config rejects the setting, and newThread throws). All the waits of the players go through the
+ * clock, blocking queues and latches, which park a virtual thread without pinning its carrier thread.
+ */
+public final class Threads {
+
+    /**
+     * Thread.Builder.OfVirtual Thread.ofVirtual(), Thread.Builder.OfVirtual.name(String) and
+     * Thread.Builder.unstarted(Runnable), or null if the JDK has no virtual threads.
+     */
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method UNSTARTED;
+
+    static {
+        Method ofVirtual = null, name = null, unstarted = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = ofVirtual.getReturnType();
+            name = builder.getMethod("name", String.class);
+            unstarted = builder.getMethod("unstarted", Runnable.class);
+        } catch (NoSuchMethodException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        UNSTARTED = unstarted;
+    }
+
+    private Threads() {
+    }
+
+    /**
+     * @return - true iff the JDK supports virtual threads.
+     */
+    public static boolean virtualThreadsSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates an unstarted thread of a game.
+     *
+     * @param env  - the game environment (its configuration selects platform or virtual threads).
+     * @param task - the task of the thread.
+     * @param name - the name of the thread.
+     * @return - the thread.
+     */
+    public static Thread newThread(Env env, Runnable task, String name) {
+        return newThread(env.config, task, name);
+    }
+
+    /**
+     * Creates an unstarted thread.
+     *
+     * @param config - the configuration (selects platform or virtual threads).
+     * @param task   - the task of the thread.
+     * @param name   - the name of the thread.
+     * @return - the thread.
+     * @throws UnsupportedOperationException - if virtual threads are asked for and the JDK has none.
+     */
+    public static Thread newThread(Config config, Runnable task, String name) {
+        if (!config.virtualThreads) return new Thread(task, name);
+        if (OF_VIRTUAL == null)
+            throw new UnsupportedOperationException("the JDK has no virtual threads (Java 21 or later is needed)");
+        try {
+            return (Thread) UNSTARTED.invoke(NAME.invoke(OF_VIRTUAL.invoke(null), name), task);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("cannot create a virtual thread", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package bguspl.set;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * An interface for general utilities provided for convenience.
@@ -15,6 +16,14 @@ public interface Util {
      */
     int[] cardToFeatures(int card);
 
+    /**
+     * Converts a card id to its features, without allocating (see cardToFeatures method).
+     *
+     * @param card     - the card id.
+     * @param features - an array of at least config.featureCount entries to fill with the features.
+     */
+    void cardToFeatures(int card, int[] features);
+
     /**
      * Converts an array of card ids to an array of features (see cardToFeatures method).
      *
@@ -31,6 +40,16 @@ public interface Util {
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Checks if a range of an array of cards forms a legal set, without allocating.
+     *
+     * @param cards  - an array of card ids.
+     * @param offset - the index of the first card in the range.
+     * @param length - the number of cards in the range.
+     * @return - true iff the range forms a legal set (false if it contains an invalid card id).
+     */
+    boolean testSet(int[] cards, int offset, int length);
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
      *
@@ -40,8 +59,47 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Finds up to count sets in the given array of cards, without allocating. Only a search in parallel (of at least
+     * config.parallelFinderMinCards cards, when config.finderParallelism is above 1) allocates: its fork/join tasks,
+     * and the sets they find before they are copied to out.
+     *
+     * @param cards - an array of distinct card ids.
+     * @param n     - the number of cards in the array to search (starting from index 0).
+     * @param count - the maximum number of sets to find (no more than out.length / config.featureSize).
+     * @param out   - an array to fill with the card ids of the sets found, config.featureSize ids (sorted) per set.
+     * @return - the number of sets found.
+     */
+    int findSets(int[] cards, int n, int count, int[] out);
+
+    /**
+     * Returns a lazy stream of the sets in the given array of cards, in the same order as findSets. The sets are
+     * found only as the stream is consumed (so it may be short-circuited early, or iterated with its iterator), and
+     * the stream can be made parallel.
+     *
+     * @param cards - an array of distinct card ids (it is copied, so it may be changed later).
+     * @param n     - the number of cards in the array to search (starting from index 0).
+     * @return - a stream of integer arrays, each one contains the (sorted) card ids of a legal set.
+     */
+    Stream<int[]> streamSets(int[] cards, int n);
+
+    /**
+     * Counts the sets in the given array of cards, without materializing them.
+     *
+     * @param cards - an array of distinct card ids.
+     * @param n     - the number of cards in the array to search (starting from index 0).
+     * @return - the number of legal sets.
+     */
+    long countSets(int[] cards, int n);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
     void spin();
+
+    /**
+     * Releases the threads of the utilities, if they have any (called once the game is over).
+     */
+    default void close() {
+    }
 }
@@ -4,7 +4,8 @@ import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The implementation of the UserInterface interface.
@@ -13,15 +14,42 @@ public class UtilImpl implements Util {
 
     private final Config config;
 
+    /**
+     * The features of every card (config.featureCount entries per card, decoded once).
+     */
+    private final int[] features;
+
+    /**
+     * The packed features of every card (for testing sets with bitwise operations).
+     */
+    private final CardCodec codec;
+
+    /**
+     * A set finder per calling thread (the finders keep scratch buffers).
+     */
+    private final ThreadLocal<SetFinder> finder;
+
+    /**
+     * Finds sets in large collections of cards in parallel (null if they should be found in the calling thread).
+     */
+    private final ParallelSetFinder parallelFinder;
+
     public UtilImpl(Config config) {
         this.config = config;
+        codec = new CardCodec(config);
+        finder = ThreadLocal.withInitial(() -> new SetFinder(config, codec));
+        parallelFinder = config.finderParallelism > 1 ? new ParallelSetFinder(config, codec) : null;
+        features = new int[config.deckSize * config.featureCount];
+        for (int card = 0; card < config.deckSize; ++card)
+            for (int i = config.featureCount - 1, id = card; i >= 0; --i) {
+                features[card * config.featureCount + i] = id % config.featureSize;
+                id /= config.featureSize;
+            }
     }
 
-    private void cardToFeatures(int card, int[] features) {
-        for (int i = config.featureCount - 1; i >= 0; --i) {
-            features[i] = card % config.featureSize;
-            card /= config.featureSize;
-        }
+    @Override
+    public void cardToFeatures(int card, int[] features) {
+        System.arraycopy(this.features, card * config.featureCount, features, 0, config.featureCount);
     }
 
     @Override
@@ -34,30 +62,39 @@ public class UtilImpl implements Util {
     @Override
     public int[][] cardsToFeatures(int[] cards) {
         int[][] features = new int[cards.length][config.featureCount];
-        IntStream.range(0, cards.length).forEach(i -> cardToFeatures(cards[i], features[i]));
+        for (int i = 0; i < cards.length; ++i)
+            cardToFeatures(cards[i], features[i]);
         return features;
     }
 
     @Override
     public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
-        for (int i = 0; i < config.featureCount; ++i) {
+        return testSet(cards, 0, cards.length);
+    }
+
+    @Override
+    public boolean testSet(int[] cards, int offset, int length) {
+        int featureCount = config.featureCount;
+        for (int j = offset; j < offset + length; ++j)
+            if (cards[j] < 0 || cards[j] >= config.deckSize) return false;
+        if (codec.packable && length == config.featureSize && length >= 2)
+            return codec.testSet(cards, offset, length);
+
+        for (int i = 0; i < featureCount; ++i) {
             boolean sameSame = true, butDifferent = true;
 
-            // check if this features is sameSame in all cards
-            for (int j = 1; j < features.length; ++j)
-                if (features[0][i] != features[j][i]) {
+            for (int j = 1; j < length; ++j) {
+                int feature = features[cards[offset + j] * featureCount + i];
+
+                // check if this features is sameSame in all cards
+                if (features[cards[offset] * featureCount + i] != feature)
                     sameSame = false;
-                    break;
-                }
 
-            // check if this feature is butDifferent in all cards
-            for (int j = 1; j < features.length; ++j)
-                for (int k = j; k < features.length; ++k)
-                    if (features[j - 1][i] == features[k][i]) {
+                // check if this feature is butDifferent in all cards
+                for (int k = 0; k < j && butDifferent; ++k)
+                    if (features[cards[offset + k] * featureCount + i] == feature)
                         butDifferent = false;
-                        break;
-                    }
+            }
 
             if (sameSame == butDifferent) return false;
         }
@@ -66,28 +103,53 @@ public class UtilImpl implements Util {
 
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        if (parallel(cards.length)) return parallelFinder.findSets(cards, cards.length, count);
+
         LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
-        int r = config.featureSize;
-        int[] combination = new int[r];
-
-        for (int i = 0; i < r; ++i)
-            combination[i] = i;
-
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
-            if (testSet(cards)) {
-                sets.add(cards);
-                if (sets.size() >= count) return sets;
-            }
+        finder.get().findSets(cards, cards.length, count, set -> {
+            int[] sorted = Arrays.copyOf(set, set.length);
+            Arrays.sort(sorted);
+            return sets.add(sorted);
+        });
+        return sets;
+    }
 
-            // generate next combination in lexicographic order
-            int t = r - 1;
-            while (t != 0 && combination[t] == n - r + t) --t;
-            combination[t]++;
-            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+    @Override
+    public int findSets(int[] cards, int n, int count, int[] out) {
+        count = Math.min(count, out.length / config.featureSize);
+        if (parallel(n)) {//allocates the tasks of the search (see Util.findSets)
+            List<int[]> sets = parallelFinder.findSets(cards, n, count);
+            int found = Math.min(sets.size(), out.length / config.featureSize);
+            for (int i = 0; i < found; i++)
+                System.arraycopy(sets.get(i), 0, out, i * config.featureSize, config.featureSize);
+            return found;
         }
-        return sets;
+        return finder.get().findSets(cards, n, count, out);
+    }
+
+    @Override
+    public Stream<int[]> streamSets(int[] cards, int n) {
+        return StreamSupport.stream(new SetSpliterator(config, codec, cards, n), false);
+    }
+
+    @Override
+    public long countSets(int[] cards, int n) {
+        if (parallel(n)) return parallelFinder.countSets(cards, n);
+        return finder.get().findSets(cards, n, Integer.MAX_VALUE, set -> true);
+    }
+
+    /**
+     * @param n - the number of cards to search.
+     * @return - true iff their sets should be found in parallel.
+     */
+    private boolean parallel(int n) {
+        return parallelFinder != null && n >= config.parallelFinderMinCards;
+    }
+
+    @Override
+    public void close() {
+        if (parallelFinder != null) parallelFinder.close();
     }
 
     public void spin() {
@@ -0,0 +1,20 @@
+package bguspl.set;
+
+/**
+ * The possible verdicts of the dealer on a claimed set.
+ */
+public enum Verdict {
+    /**
+     * The cards form a legal set (the player got a point).
+     */
+    LEGAL,
+    /**
+     * The cards do not form a legal set (the player got a penalty).
+     */
+    ILLEGAL,
+    /**
+     * The claim was not checked, since some of its cards or tokens were removed before the dealer got to it (the
+     * tokens were returned to the player when they were removed).
+     */
+    DROPPED
+}
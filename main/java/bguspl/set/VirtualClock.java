@@ -0,0 +1,162 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A virtual time that stands still while any participant of the game can make progress, and advances instantly to
+ * the next deadline (the end of a freeze, of a table delay or of a turn) once all of them wait and none of them can
+ * be woken by another: a game runs as fast as its threads can play it, with the same timing as in wall-clock time.
+ * <p>
+ * The clock is meant for games of computer players: a thread that waits outside of the clock (e.g. for a key press of
+ * a human player) counts as working, so the time does not advance until it waits through the clock again.
+ * The time starts at 0. The participants wait on a lock and a condition rather than a monitor, so a waiting virtual
+ * thread does not pin its carrier thread.
+ */
+public class VirtualClock implements Clock {
+
+    /**
+     * A participant waiting on the clock, until its condition holds or its deadline passes.
+     */
+    private static final class Waiter {
+        final BooleanSupplier ready;
+        final long deadline;
+
+        Waiter(BooleanSupplier ready, long deadline) {
+            this.ready = ready;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final BooleanSupplier NEVER = () -> false;
+
+    /*
+     * The state of the clock (guarded by the lock, and signaled through the condition).
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private long now;
+    private int participants;
+    private final List<Waiter> waiters = new ArrayList<>();
+
+    @Override
+    public long millis() {
+        lock.lock();
+        try {
+            return now;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        await(NEVER, millis);
+    }
+
+    @Override
+    public <E> E poll(BlockingQueue<E> queue, long timeout) throws InterruptedException {
+        lock.lock();
+        try {
+            E element = queue.poll();
+            if (element == null && await(() -> !queue.isEmpty(), timeout))
+                element = queue.poll();
+            return element;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public <E> boolean offer(BlockingQueue<E> queue, E element) {
+        lock.lock();
+        try {
+            boolean added = queue.offer(element);
+            if (added) changed.signalAll();
+            return added;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void idle(BooleanSupplier condition) throws InterruptedException {
+        await(condition, Long.MAX_VALUE);
+    }
+
+    @Override
+    public void signal() {
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void register() {
+        lock.lock();
+        try {
+            participants++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void unregister() {
+        lock.lock();
+        try {
+            participants--;
+            advance();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a condition holds or the given time passes.
+     *
+     * @return - true iff the condition holds.
+     */
+    private boolean await(BooleanSupplier ready, long timeout) throws InterruptedException {
+        lock.lock();
+        Waiter waiter = new Waiter(ready, timeout >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + timeout);
+        waiters.add(waiter);
+        try {
+            changed.signalAll(); // the waiting participants may depend on what this one did since it last waited
+            while (!ready.getAsBoolean() && now < waiter.deadline) {
+                advance();
+                if (ready.getAsBoolean() || now >= waiter.deadline) break;
+                changed.await();
+            }
+            return ready.getAsBoolean();
+        } finally {
+            waiters.remove(waiter);
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Advances the time to the earliest deadline, if all the participants wait and none of them can go on at the
+     * current time. A waiter that can go on was already woken (by the participant that made its condition hold, when
+     * that participant started to wait, or by the advance of the time), so it is not woken again: the other waiters
+     * would only keep it from taking the lock (called with the lock held).
+     */
+    private void advance() {
+        if (waiters.size() < participants) return;
+        long next = Long.MAX_VALUE;
+        for (Waiter waiter : waiters) {
+            if (waiter.deadline <= now || waiter.ready.getAsBoolean()) return;
+            next = Math.min(next, waiter.deadline);
+        }
+        if (next == Long.MAX_VALUE) return; // no deadline: only a thread outside of the game can wake them
+        now = next;
+        changed.signalAll();
+    }
+}
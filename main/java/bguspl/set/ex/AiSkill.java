@@ -0,0 +1,73 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.ReactionDistribution;
+
+import java.util.Random;
+
+/**
+ * The skill of a computer player: how long it takes to react before every key press (drawn from a distribution), and
+ * how often it claims a wrong set (see Config.aiReactionMillis, aiReactionJitterMillis, aiReactionDistribution and
+ * aiErrorRate). Used by the AI thread of a single player only.
+ */
+public class AiSkill {
+
+    private final ReactionDistribution distribution;
+    private final double meanMillis;
+    private final double jitterMillis;
+    private final double errorRate;
+    private final Random random;
+
+    /**
+     * @param config - the game configuration.
+     * @param random - the random source of the player.
+     */
+    public AiSkill(Config config, Random random) {
+        this(config.aiReactionDistribution, config.aiReactionMillis, config.aiReactionJitterMillis, config.aiErrorRate,
+                random);
+    }
+
+    public AiSkill(ReactionDistribution distribution, double meanMillis, double jitterMillis, double errorRate,
+                   Random random) {
+        this.distribution = distribution;
+        this.meanMillis = meanMillis;
+        this.jitterMillis = jitterMillis;
+        this.errorRate = errorRate;
+        this.random = random;
+    }
+
+    /**
+     * @return - the reaction time before the next key press (in milliseconds, at least 0).
+     */
+    public long reactionMillis() {
+        double millis;
+        switch (distribution) {
+            case UNIFORM:
+                millis = meanMillis + (2 * random.nextDouble() - 1) * jitterMillis;
+                break;
+            case GAUSSIAN:
+                millis = meanMillis + random.nextGaussian() * jitterMillis;
+                break;
+            case EXPONENTIAL:
+                millis = -meanMillis * Math.log(1 - random.nextDouble());
+                break;
+            default:
+                millis = meanMillis;
+        }
+        return Math.max(0, Math.round(millis));
+    }
+
+    /**
+     * @return - true iff the player should make a mistake in the set it claims next.
+     */
+    public boolean errs() {
+        return errorRate > 0 && random.nextDouble() < errorRate;
+    }
+
+    /**
+     * @return - the random source of the player.
+     */
+    public Random random() {
+        return random;
+    }
+}
@@ -0,0 +1,69 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+/**
+ * The way a computer player chooses its key presses (see Config.aiStrategy). A strategy is used by the AI thread of a
+ * single player, and reads the table while the dealer changes it: the presses it chooses are dropped once the table
+ * changes (see Player), and chosen again from the new table.
+ */
+public interface AiStrategy {
+
+    /**
+     * Returned by choose when nothing was found yet, but looking again after a reaction time may find something.
+     */
+    int RETRY = -1;
+
+    /**
+     * Chooses the next key presses of a player.
+     *
+     * @param table   - the table.
+     * @param player  - the id of the player (whose tokens are on the table).
+     * @param presses - an array of at least 2 * featureSize entries, to fill with the slots to press (in order).
+     * @return - the number of presses, 0 to wait until the table or the verdicts of the player change, or RETRY.
+     */
+    int choose(Table table, int player, int[] presses);
+
+    /**
+     * Creates the strategy of a computer player, as configured.
+     *
+     * @param env   - the game environment.
+     * @param skill - the skill of the player (its random source and error rate).
+     * @return - the strategy.
+     */
+    static AiStrategy of(Env env, AiSkill skill) {
+        switch (env.config.aiStrategy) {
+            case FINDER:
+                return new FinderStrategy(env, skill);
+            case COMPLETION:
+                return new CompletionStrategy(env, skill);
+            default:
+                return new RandomStrategy(env, skill);
+        }
+    }
+
+    /**
+     * Computes the key presses that move the tokens of a player to the given slots: its tokens on other slots are
+     * removed first, then tokens are placed on the given slots that have none.
+     *
+     * @param table   - the table.
+     * @param player  - the id of the player.
+     * @param slots   - the slots to place the tokens on.
+     * @param n       - the number of slots.
+     * @param presses - an array to fill with the slots to press.
+     * @return - the number of presses (0 if the tokens are already in place).
+     */
+    static int pressesToward(Table table, int player, int[] slots, int n, int[] presses) {
+        int count = 0, tokens = table.tokens(player, presses); // compacted in place to the tokens to remove
+        for (int t = 0; t < tokens; t++) {
+            boolean kept = false;
+            for (int i = 0; i < n && !kept; i++)
+                kept = slots[i] == presses[t];
+            if (!kept) presses[count++] = presses[t];
+        }
+        for (int i = 0; i < n; i++)
+            if (!table.hasToken(player, slots[i]))
+                presses[count++] = slots[i];
+        return count;
+    }
+}
@@ -0,0 +1,90 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.Verdict;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A set claimed by a player, submitted to the dealer for checking. The player waits on the claim until the dealer
+ * gives its verdict.
+ */
+public class Claim {
+
+    /**
+     * The id of the claiming player.
+     */
+    public final int player;
+
+    /**
+     * The claimed card ids.
+     */
+    public final int[] cards;
+
+    /**
+     * The version of the table when the claim was made, and the stamps of the slots of the claimed cards (see
+     * Table.claim).
+     */
+    public final long version;
+    public final long[] stamps;
+
+    private volatile Verdict verdict;
+    private final CountDownLatch decided = new CountDownLatch(1);
+
+    /**
+     * @param player  - the id of the claiming player.
+     * @param cards   - the claimed card ids (the array is copied).
+     * @param version - the version of the table when the claim was made.
+     * @param stamps  - the stamps of the slots of the claimed cards (-1 for cards that are not on the table).
+     */
+    public Claim(int player, int[] cards, long version, long[] stamps) {
+        this.player = player;
+        this.cards = cards.clone();
+        this.version = version;
+        this.stamps = stamps;
+    }
+
+    /**
+     * Checks a claim (the dealer's check, which a replay repeats): a claim whose player no longer has all of its
+     * tokens on the table, or whose cards left their slots since it was made, is dropped, and the rest are legal iff
+     * their cards form a set.
+     *
+     * @param env   - the game environment objects.
+     * @param table - the table the claim was made on.
+     * @param claim - the claim to check.
+     * @return - the verdict of the claim.
+     */
+    static Verdict check(Env env, Table table, Claim claim) {
+        if (table.countTokens(claim.player) != env.config.featureSize || !table.isCurrent(claim))
+            return Verdict.DROPPED;
+        return env.util.testSet(claim.cards, 0, claim.cards.length) ? Verdict.LEGAL : Verdict.ILLEGAL;
+    }
+
+    /**
+     * Gives the verdict of the claim and wakes the waiting player (called by the dealer, once per claim).
+     *
+     * @param verdict - the verdict of the dealer.
+     */
+    void decide(Verdict verdict) {
+        this.verdict = verdict;
+        decided.countDown();
+    }
+
+    /**
+     * Waits until the dealer gives the verdict of the claim.
+     *
+     * @return - the verdict.
+     * @throws InterruptedException - if the waiting thread is interrupted (e.g. when the game is terminated).
+     */
+    public Verdict await() throws InterruptedException {
+        decided.await();
+        return verdict;
+    }
+
+    /**
+     * @return - the verdict of the claim, or null if the dealer has not decided yet.
+     */
+    public Verdict verdict() {
+        return verdict;
+    }
+}
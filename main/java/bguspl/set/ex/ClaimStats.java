@@ -0,0 +1,81 @@
+package bguspl.set.ex;
+
+import bguspl.set.Verdict;
+
+/**
+ * Throughput counters of the claims checked by the dealer. The counters are written by the dealer thread only, and
+ * may be read by any thread.
+ */
+public class ClaimStats {
+
+    private final long start = System.nanoTime();
+
+    private volatile long legal;
+    private volatile long illegal;
+    private volatile long dropped;
+    private volatile long batches;
+    private volatile long largestBatch;
+
+    /**
+     * Counts a checked claim.
+     *
+     * @param verdict - the verdict of the claim.
+     */
+    void record(Verdict verdict) {
+        switch (verdict) {
+            case LEGAL:
+                legal++;
+                break;
+            case ILLEGAL:
+                illegal++;
+                break;
+            default:
+                dropped++;
+        }
+    }
+
+    /**
+     * Counts a batch of claims checked in one pass.
+     *
+     * @param size - the number of claims in the batch.
+     */
+    void recordBatch(int size) {
+        batches++;
+        if (size > largestBatch) largestBatch = size;
+    }
+
+    /**
+     * @return - the number of claims checked so far (including dropped ones).
+     */
+    public long claims() {
+        return legal + illegal + dropped;
+    }
+
+    public long legal() {
+        return legal;
+    }
+
+    public long illegal() {
+        return illegal;
+    }
+
+    public long dropped() {
+        return dropped;
+    }
+
+    /**
+     * @return - the average number of claims checked per second since the counters were created.
+     */
+    public double claimsPerSecond() {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return seconds > 0 ? claims() / seconds : 0;
+    }
+
+    @Override
+    public String toString() {
+        long claims = claims();
+        return String.format("%d claims (%.1f/sec): %d legal, %d illegal, %d dropped; %d batches (%.2f avg, %d max)",
+                claims, claimsPerSecond(), legal, illegal, dropped, batches,
+                batches == 0 ? 0 : (double) claims / batches, largestBatch);
+    }
+}
@@ -0,0 +1,52 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.SetFinder;
+
+/**
+ * Looks at random featureSize - 1 cards on the table (pairs of cards, for the usual deck) and completes them into a
+ * set, as a person would: every look makes up to Config.aiSearchAttempts attempts, and the player looks again after a
+ * reaction time if none of them completed into a card on the table.
+ */
+public class CompletionStrategy extends SetStrategy {
+
+    /**
+     * Completes the cards into a set (a finder of the AI thread: a finder is not thread safe).
+     */
+    private final SetFinder finder;
+
+    private final int[] cards;
+    private final int[] occupied;
+
+    public CompletionStrategy(Env env, AiSkill skill) {
+        super(env, skill);
+        finder = new SetFinder(env.config);
+        cards = new int[env.config.featureSize - 1];
+        occupied = new int[env.config.tableSize];
+    }
+
+    @Override
+    protected int find(TableView view, int[] slots) {
+        int n = 0;
+        for (int slot = 0; slot < occupied.length; slot++)
+            if (view.cardAt(slot) != Table.EMPTY) occupied[n++] = slot;
+        int r = cards.length;
+        if (n <= r) return 0;
+        for (int attempt = 0; attempt < env.config.aiSearchAttempts; attempt++) {
+            for (int i = 0; i < r; i++) { // a partial shuffle of the occupied slots picks r distinct ones
+                int j = i + random.nextInt(n - i), slot = occupied[j];
+                occupied[j] = occupied[i];
+                occupied[i] = slot;
+                cards[i] = view.cardAt(slot);
+                slots[i] = slot;
+            }
+            int card = finder.complete(cards, 0, r);
+            int slot = card == Table.EMPTY ? Table.EMPTY : view.slotOf(card);
+            if (slot != Table.EMPTY) {
+                slots[r] = slot;
+                return r + 1;
+            }
+        }
+        return RETRY;
+    }
+}
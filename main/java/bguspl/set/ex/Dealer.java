@@ -1,12 +1,14 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.SetIndex;
+import bguspl.set.Threads;
+import bguspl.set.Verdict;
 
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * This class manages the dealer's threads and data
@@ -25,9 +27,42 @@ public class Dealer implements Runnable {
     protected final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The cards that are left in the dealer's deck.
      */
-    private final List<Integer> deck;
+    private final Deck deck;
+    private final Random random;
+
+    /**
+     * Scratch buffers for dealing: the slots to fill (in a random order) and the cards drawn for them.
+     */
+    private final int[] slotOrder;
+    private final int[] drawnCards;
+
+    /**
+     * Scratch buffer for the ids of the players whose tokens were removed from a slot.
+     */
+    private final int[] tokenOwners;
+
+    /**
+     * The legal sets among the cards that are left in the game (i.e. the cards in the deck and on the table), or null
+     * for a deck too large to index (see MAX_INDEX_COMPLETIONS): the cards left in its game are searched for a set
+     * instead, once every time cards leave the game.
+     */
+    private final SetIndex remainingSets;
+    private boolean setsLeft;
+    private boolean setsLeftStale = true;
+
+    /**
+     * Scratch buffers for the search of the cards left in the game: the cards, and the set found among them.
+     */
+    private final int[] remainingCards;
+    private final int[] foundSet;
+
+    /**
+     * The most completions (of featureSize - 1 cards into a set) indexing the sets of the whole deck may take. The
+     * usual deck takes C(81, 2) = 3240 of them, a deck of n cards about C(n, featureSize - 1).
+     */
+    private static final double MAX_INDEX_COMPLETIONS = 1e7;
 
     /**
      * True iff game should be terminated due to an external event.
@@ -39,24 +74,71 @@ public class Dealer implements Runnable {
      */
     private long reshuffleTime = Long.MAX_VALUE;
     //    protected boolean tableReady;
-    protected int[] dealerSetQueue;
     protected Thread[] playerThread;
-    protected Integer checkSetByPlayerId = -1;
-    protected static final ReentrantLock lock = new ReentrantLock(true);
-    private long curtime = 0;
-    private long reset = System.currentTimeMillis();
-    protected long[] penaltyArray;
+
+    /**
+     * The sets claimed by the players, waiting to be checked (the dealer blocks on it between timer updates).
+     */
+    protected final BlockingQueue<Claim> claims = new LinkedBlockingQueue<>();
+
+    /**
+     * The claims drained from the queue in a single pass, and the throughput counters of the checked claims.
+     */
+    private final List<Claim> batch = new ArrayList<>();
+    protected final ClaimStats claimStats = new ClaimStats();
+
+    /**
+     * The timer display (the countdown and the freeze times of the players), updated from its own thread.
+     */
+    private final DealerTimer timer;
+
+    /**
+     * The dealer thread (interrupted when the game is terminated by another thread, to wake it up).
+     */
+    private volatile Thread dealerThread;
+
+    /**
+     * The writer the snapshots of the game are given to (null if none), and the time the next one is taken.
+     */
+    private SnapshotWriter snapshots;
+    private long nextSnapshotTime = Long.MAX_VALUE;
+
+    /**
+     * The time left of the countdown of a restored game (-1 if the first turn gets the full countdown).
+     */
+    private long resumedCountdownMillis = -1;
+
+    /**
+     * True iff the game ended by itself (no sets are left), rather than being terminated.
+     */
+    private volatile boolean over;
 
 
     public Dealer(Env env, Table table, Player[] players) {
+        this(env, table, players, new DealerTimer(env));
+    }
+
+    /**
+     * @param timer - the timer display of the game (e.g. on a scheduler shared by several game rooms).
+     */
+    public Dealer(Env env, Table table, Player[] players, DealerTimer timer) {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
-        dealerSetQueue = new int[env.config.featureSize];
-        penaltyArray = new long[env.config.players];
-        for (int i = 0; i < penaltyArray.length; i++)
-            penaltyArray[i] = -1;
+        random = env.random.dealer();
+        deck = new Deck(env.config, random);
+        if (combinations(env.config.deckSize, env.config.featureSize - 1) <= MAX_INDEX_COMPLETIONS) {
+            remainingSets = new SetIndex(env.config);
+            for (int card = 0; card < env.config.deckSize; card++)
+                remainingSets.add(card);
+        } else
+            remainingSets = null;
+        remainingCards = new int[env.config.deckSize];
+        foundSet = new int[env.config.featureSize];
+        slotOrder = new int[env.config.tableSize];
+        drawnCards = new int[env.config.tableSize];
+        tokenOwners = new int[players.length];
+        this.timer = timer;
     }
 
     /**
@@ -64,40 +146,38 @@ public class Dealer implements Runnable {
      */
     @Override
     public void run() {
+        dealerThread = Thread.currentThread();
+        env.clock.register();
         playerThread = new Thread[players.length];
         for (Integer i = 0; i < playerThread.length; i++)
-            playerThread[i] = new Thread(players[i], env.config.playerNames[i]);
+            playerThread[i] = Threads.newThread(env, players[i], env.config.playerNames[i]);
         env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting.");
-        for (Integer i = 0; i < playerThread.length; i++)
+        for (Integer i = 0; i < playerThread.length; i++) {
+            env.clock.register();
             playerThread[i].start();
+        }
+        if (env.config.turnTimeoutMillis <= 0)
+            timer.reset(reshuffleTime);//starts the elapsed time of the bonus modes (the countdown starts every turn)
         while (!shouldFinish()) {
             placeCardsOnTable();
-            table.tableReady = true;
+            table.unlock();
             timerLoop();
             if (!terminate) {
-                updateTimerDisplay(false);
-                table.tableReady = false;
-                List<Integer> cardsOnTable = new LinkedList<>();
-                for (int i = 0; i < env.config.tableSize; i++)
-                    if (table.slotToCard[i] != null) {
-                        cardsOnTable.add(table.slotToCard[i]);
-                    }//checks if there is a set on the table
-                if ((env.util.findSets(cardsOnTable, 1).size() == 0) && (env.util.findSets(deck, 1).size() == 0)) {
-                    List<Integer> allCards = new LinkedList<>();
-                    for (Integer card : deck) {
-                        allCards.add(card);
-                    }
-                    for (Integer card : cardsOnTable) {
-                        allCards.add(card);
-                    }
-                    if (env.util.findSets(allCards, 1).size() == 0) {//checks if there is a set in the available cards
-                        terminate();
-                    }
+                table.lock();
+                if (!setsLeft()) {
+                    over = true;
+                    terminate();//no set is left on the table, in the deck or between them
                 } else
                     removeAllCardsFromTable();
             }
         }
+        if (!setsLeft()) over = true;
+        if (snapshots != null) {//a game that was terminated can be resumed from its last state
+            if (over) snapshots.delete();
+            else snapshots.save(snapshot());
+        }
         announceWinners();
+        env.clock.unregister();
         env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
 
     }
@@ -107,42 +187,25 @@ public class Dealer implements Runnable {
      */
     private void timerLoop() {
         if (env.config.turnTimeoutMillis < 0 || env.config.turnTimeoutMillis == 0) {//bonus modes:0 and -1
-            List<Integer> cardsOnTable = new LinkedList<>();
-            for (int i = 0; i < env.config.tableSize; i++)//adding all the cards that are on the table to the list
-                cardsOnTable.add(table.slotToCard[i]);
-            while (env.util.findSets(cardsOnTable, 1).size() == 0 && !shouldFinish()) {//if there is no sets on the table. reshuffles
-                removeAllCardsFromTable();
-                placeCardsOnTable();
-                cardsOnTable = new LinkedList<>();
-                for (int i = 0; i < env.config.tableSize; i++)
-                    if (table.slotToCard[i] != null)
-                        cardsOnTable.add(table.slotToCard[i]);
-            }
-            while (!shouldFinish() && env.util.findSets(cardsOnTable, 1).size() > 0) {//this loop and for the first run of the loop only
-                sleepUntilWokenOrTimeout();
-                updateTimerDisplay(false);
-                placeCardsOnTable();
-                cardsOnTable = new LinkedList<>();
-                for (int i = 0; i < env.config.tableSize; i++) {
-                    if (table.slotToCard[i] != null)
-                        cardsOnTable.add(table.slotToCard[i]);
-                }
-                table.tableReady = true;
-                while (env.util.findSets(cardsOnTable, 1).size() == 0 && !shouldFinish()) {//removing all cards from the table until we have a set
-                    table.tableReady = false;
+            while (!shouldFinish()) {
+                while (table.countSets() == 0 && !shouldFinish()) {//removing all cards from the table until we have a set
+                    table.lock();
                     removeAllCardsFromTable();
                     placeCardsOnTable();
-                    cardsOnTable = new LinkedList<>();
-                    for (int i = 0; i < env.config.tableSize; i++)
-                        cardsOnTable.add(table.slotToCard[i]);
                 }
+                if (shouldFinish()) break;
+                table.unlock();//the players take tokens only while waiting for claims
+                sleepUntilWokenOrTimeout();
+                placeCardsOnTable();
             }
         } else {//regular mode
-            reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
-            while (!shouldFinish() && System.currentTimeMillis() < reshuffleTime) {
-                table.tableReady = true;
+            long countdown = resumedCountdownMillis >= 0 ? resumedCountdownMillis : env.config.turnTimeoutMillis;
+            resumedCountdownMillis = -1;
+            reshuffleTime = env.clock.millis() + countdown;
+            timer.reset(reshuffleTime);
+            while (!shouldFinish() && env.clock.millis() < reshuffleTime) {
+                table.unlock();
                 sleepUntilWokenOrTimeout();
-                updateTimerDisplay(false);
                 placeCardsOnTable();
             }
         }
@@ -153,6 +216,9 @@ public class Dealer implements Runnable {
      */
     public void terminate() {
         terminate = true;
+        Thread thread = dealerThread;
+        if (thread != null && thread != Thread.currentThread())
+            thread.interrupt();
     }
 
     /**
@@ -161,160 +227,263 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        List<Integer> cardsOnTable = new LinkedList<>();
-        for (int i = 0; i < env.config.tableSize; i++) {
-            if (table.slotToCard[i] != null) {
-                cardsOnTable.add(table.slotToCard[i]);
+        return terminate || !setsLeft();
+    }
+
+    /**
+     * @return - true iff a legal set is left among the cards in the deck and on the table.
+     */
+    boolean setsLeft() {
+        if (remainingSets != null) return remainingSets.countSets() > 0;
+        if (setsLeftStale) {//an early-exit search: the first set found ends it
+            int n = deck.cards(remainingCards);
+            for (int slot = 0; slot < table.slots(); slot++) {
+                int card = table.cardAt(slot);
+                if (card != Table.EMPTY) remainingCards[n++] = card;
             }
+            setsLeft = env.util.findSets(remainingCards, n, 1, foundSet) > 0;
+            setsLeftStale = false;
         }
-        return terminate || (env.util.findSets(deck, 1).size() == 0) && (env.util.findSets(cardsOnTable, 1).size() == 0);
+        return setsLeft;
     }
 
     /**
-     * Checks cards should be removed from the table and removes them.
-     */
-    private void removeCardsFromTable() {
-        Integer slot;
-        for (int i = 0; i < dealerSetQueue.length; i++) {
-            try {
-                slot = table.cardToSlot[dealerSetQueue[i]];
-                for (int j = 0; j < players.length; j++) {
-                    if (table.slotstotokens[slot][j] != null) {
-                        for (int t = 0; t < players[j].setQueue.length; t++) {//removing the card from all players if it is in their setqueue
-                            if (players[j].setQueue[t] == table.slotToCard[slot])
-                                players[j].setQueue[t] = -1;
-                        }
-                        players[j].availableToken++;
-                        table.removeToken(j, slot);
-                    }
-                }
-                table.removeCard(slot);
-            } catch (NullPointerException ignored) {//using optimistic try and fail, if by some unexplainable reason a null or -1 got into the playersetqueue, handle this by granting the token back to the player and ignore the "placing" of the token
-                for (int x = i; x < players[checkSetByPlayerId].setQueue.length; x++) {
-                    players[checkSetByPlayerId].setQueue[x] = -1;
-                    players[checkSetByPlayerId].availableToken++;
-                }
-            } catch (ArrayIndexOutOfBoundsException ignored) {
-                players[checkSetByPlayerId].availableToken++;
+     * Takes a card out of the game (i.e. a card of a legal set).
+     *
+     * @param card - the card id.
+     */
+    private void discard(int card) {
+        if (remainingSets != null) remainingSets.remove(card);
+        setsLeftStale = true;
+    }
+
+    /**
+     * @return - the number of combinations of k out of n items (as a double, as it may be huge).
+     */
+    private static double combinations(int n, int k) {
+        double combinations = 1;
+        for (int i = 0; i < k; i++)
+            combinations = combinations * (n - i) / (i + 1);
+        return combinations;
+    }
+
+    /**
+     * Submits a set claimed by a player to the dealer (wakes the dealer immediately).
+     *
+     * @param claim - the claimed set.
+     */
+    public void submit(Claim claim) {
+        env.clock.offer(claims, claim);
+    }
+
+    /**
+     * Removes the cards of a legal claim from the table.
+     */
+    private void removeCardsFromTable(Claim claim) {
+        for (int card : claim.cards) {
+            int slot = table.slotOf(card);//on the table, as the claim was current
+            if (slot == Table.EMPTY) continue;
+            returnTokens(slot);
+            discard(card);
+            table.removeCard(slot);
+        }
+    }
+
+    /**
+     * Returns the tokens on a slot to their players (and removes its card from their set queues).
+     *
+     * @param slot - the slot.
+     */
+    private void returnTokens(int slot) {
+        int card = table.cardAt(slot);
+        int count = table.removeTokens(slot, tokenOwners);
+        for (int i = 0; i < count; i++) {
+            Player player = players[tokenOwners[i]];
+            for (int t = 0; t < player.setQueue.length; t++) {//removing the card from the setqueue so that it wont stay there for later checks
+                if (player.setQueue[t] == card)
+                    player.setQueue[t] = -1;
             }
         }
-        checkSetByPlayerId = -1;
     }
 
     /**
      * Check if any cards can be removed from the deck and placed on the table.
      */
     private void placeCardsOnTable() {
-        int card;
-        List<Integer> random = new LinkedList<>();
-        for (int i = 0; i < table.slotToCard.length; i++) {
-            random.add(i);
-        }
-        Collections.shuffle(random);
-        if (!deck.isEmpty()) {
-            if (table.countCards() < table.slotToCard.length)//if there is an empty spot on the table
-            {
-                Collections.shuffle(deck);//shuffle the deck
-                for (Integer i : random) {
-                    if (table.slotToCard[i] == null && !deck.isEmpty()) {//place the cards on the table
-                        card = deck.remove(0);
-                        table.placeCard(card, i);
-                        env.ui.placeCard(card, i);
-                    }
-                }
-            }
+        int empty = 0;
+        for (int slot = 0; slot < table.slots(); slot++)
+            if (table.cardAt(slot) == Table.EMPTY)
+                slotOrder[empty++] = slot;
+        int drawn = deck.draw(drawnCards, empty);
+        for (int i = 0; i < drawn; i++) {
+            swap(slotOrder, i, i + random.nextInt(empty - i));//fill the empty slots in a random order
+            table.placeCard(drawnCards[i], slotOrder[i]);
+            env.ui.placeCard(drawnCards[i], slotOrder[i]);
         }
     }
 
+    private static void swap(int[] array, int i, int j) {
+        int temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Sleep until a player claims a set or the turn times out (whichever comes first).
      */
     private void sleepUntilWokenOrTimeout() {
+        Claim claim = null;
         try {
-            Thread.currentThread().sleep(1);
+            long deadline = Math.min(nextSnapshotTime, env.config.turnTimeoutMillis > 0 ? reshuffleTime : Long.MAX_VALUE);
+            long timeout = deadline == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - env.clock.millis();
+            claim = env.clock.poll(claims, Math.max(0, timeout));
         } catch (InterruptedException e) {
         }
-        if (checkSetByPlayerId >= 0) { //if a player changed this flag that means there is a set to check
-            if (env.util.testSet(dealerSetQueue)) {
-                table.tableReady = false;
-                players[checkSetByPlayerId].point();
-                penaltyArray[checkSetByPlayerId] = System.currentTimeMillis() + (env.config.pointFreezeMillis);
-                removeCardsFromTable();
-                reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
-                reset = System.currentTimeMillis();//for the elapsed time bonus
-            } else {
-                players[checkSetByPlayerId].penalty();
-                penaltyArray[checkSetByPlayerId] = System.currentTimeMillis() + (env.config.penaltyFreezeMillis);
-            }
-            checkSetByPlayerId = -1;
+        if (claim != null) {
+            batch.add(claim);
+            checkClaims();
         }
-        curtime = System.currentTimeMillis() - reset;
-        updateTimerDisplay(false);
+        if (env.clock.millis() >= nextSnapshotTime) {
+            snapshots.save(snapshot());
+            nextSnapshotTime = env.clock.millis() + snapshots.intervalMillis;
+        }
+    }
 
+    /**
+     * Takes snapshots of the game periodically from now on (called before the dealer thread starts).
+     *
+     * @param snapshots - the writer to give the snapshots to.
+     */
+    public void takeSnapshots(SnapshotWriter snapshots) {
+        this.snapshots = snapshots;
+        nextSnapshotTime = env.clock.millis() + snapshots.intervalMillis;
     }
 
+    /**
+     * Copies the state of the game (called by the dealer thread, between the checks of claims, so the cards and the
+     * scores do not change meanwhile; the set queues of the players are reconciled with the table on restore).
+     *
+     * @return - the snapshot of the game.
+     */
+    public Snapshot snapshot() {
+        long now = env.clock.millis();
+        int[] cards = new int[table.slots()];
+        for (int slot = 0; slot < cards.length; slot++)
+            cards[slot] = table.cardAt(slot);
+        int[] scores = new int[players.length];
+        int[][] setQueues = new int[players.length][];
+        long[] freezes = new long[players.length];
+        for (int i = 0; i < players.length; i++) {
+            scores[i] = players[i].score();
+            setQueues[i] = players[i].setQueue.clone();
+            freezes[i] = timer.freezeLeft(i);
+        }
+        long countdown = env.config.turnTimeoutMillis > 0 ? Math.max(0, reshuffleTime - now) : -1;
+        return new Snapshot(now, env.config, deck.toArray(), cards, scores, setQueues, freezes, countdown);
+    }
 
     /**
-     * Reset and/or update the countdown and the countdown display.
+     * Restores the state of the game from a snapshot (called before the dealer thread starts, on a new game). The
+     * tokens of every player are placed on the cards of its set queue that are on the table; a full set queue (whose
+     * claim was not checked when the snapshot was taken) is returned to the player.
+     *
+     * @param snapshot - the snapshot of the game.
+     * @throws IllegalArgumentException - if the snapshot does not have the shape of the game.
      */
-    private void updateTimerDisplay(boolean reset) {
-        if (!reset) {
-            // Start the countdown timer
-            if (env.config.turnTimeoutMillis > 0) {
-                if (reshuffleTime - System.currentTimeMillis() > env.config.turnTimeoutWarningMillis) {
-                    env.ui.setCountdown(Math.max(0, reshuffleTime - System.currentTimeMillis()), false);
-                } else {
-                    env.ui.setCountdown(Math.max(0, reshuffleTime - System.currentTimeMillis()), true);
-                }
-                for (int i = 0; i < penaltyArray.length; i++) {
-                    if (penaltyArray[i] >= 0) {
-
-                        if (env.config.penaltyFreezeMillis > 0) {
-                            env.ui.setFreeze(i, penaltyArray[i] - System.currentTimeMillis() );
-                            if (penaltyArray[i] < System.currentTimeMillis())
-                                penaltyArray[i] = -1;
-                        }
-                    }
-                }
-            } else {
-                if (env.config.turnTimeoutMillis == 0)//for the bonus mode part
-                    env.ui.setCountdown(curtime, false);
-                for (int i = 0; i < penaltyArray.length; i++) {
-                    if (penaltyArray[i] >= 0) {
-                        if (env.config.penaltyFreezeMillis > 0) {
-                            env.ui.setFreeze(i, penaltyArray[i] - System.currentTimeMillis());
-                            if (penaltyArray[i] < System.currentTimeMillis())
-                                penaltyArray[i] = -1;
-                        }
-                    }
-                }
+    public void restore(Snapshot snapshot) {
+        if (!snapshot.fits(env.config))
+            throw new IllegalArgumentException("the snapshot does not fit the configuration of the game");
+        deck.restore(snapshot.deck);
+        boolean[] left = new boolean[env.config.deckSize];
+        for (int card : snapshot.deck) left[card] = true;
+        for (int slot = 0; slot < snapshot.slotToCard.length; slot++) {
+            int card = snapshot.slotToCard[slot];
+            if (card < 0) continue;
+            left[card] = true;
+            table.place(card, slot);
+            env.ui.placeCard(card, slot);
+        }
+        for (int card = 0; card < left.length; card++)
+            if (!left[card]) discard(card);//won earlier in the game
+
+        table.unlock();
+        for (int i = 0; i < players.length; i++) {
+            int[] setQueue = snapshot.setQueues[i].clone();
+            int tokens = 0;
+            for (int j = 0; j < setQueue.length; j++) {
+                if (setQueue[j] >= 0 && table.slotOf(setQueue[j]) == Table.EMPTY)
+                    setQueue[j] = -1;
+                if (setQueue[j] != -1) tokens++;
             }
+            if (tokens == setQueue.length)
+                Arrays.fill(setQueue, -1);
+            for (int card : setQueue)
+                if (card != -1) table.placeToken(i, table.slotOf(card));
+            players[i].restore(snapshot.scores[i], setQueue, snapshot.freezeMillis[i]);
+            timer.freeze(i, snapshot.freezeMillis[i]);
+        }
+        table.lock();
+        resumedCountdownMillis = snapshot.countdownMillis;
+    }
+
+    /**
+     * Checks all the pending claims in a single pass, in the order they were submitted.
+     */
+    void checkClaims() {
+        claims.drainTo(batch);
+        if (batch.isEmpty()) return;
+        for (Claim claim : batch)
+            claimStats.record(checkClaim(claim));
+        claimStats.recordBatch(batch.size());
+        batch.clear();
+    }
+
+    /**
+     * Checks a set claimed by a player, awards the player a point or a penalty accordingly and wakes the player.
+     * Claims made stale before they were checked (e.g. by an earlier legal claim of the same batch, which took some of
+     * their cards and returned their tokens) are dropped by their table stamps, without testing the set.
+     *
+     * @param claim - the claimed set.
+     * @return - the verdict of the claim.
+     */
+    Verdict checkClaim(Claim claim) {
+        Player player = players[claim.player];
+        Verdict verdict = Claim.check(env, table, claim);
+        env.journal.verdict(claim.player, verdict);//journaled before the table changes, as a replay checks it
+
+        if (verdict == Verdict.LEGAL) {
+            table.lock();
+            player.point();
+            timer.freeze(claim.player, env.config.pointFreezeMillis);
+            removeCardsFromTable(claim);
+            reshuffleTime = env.clock.millis() + env.config.turnTimeoutMillis;
+            timer.reset(reshuffleTime);//restarts the elapsed time in the bonus modes too
+        } else if (verdict == Verdict.ILLEGAL) {
+            player.penalty();
+            timer.freeze(claim.player, env.config.penaltyFreezeMillis);
         }
+        claim.decide(verdict);
+        return verdict;
     }
 
+
     /**
      * Returns all the cards from the table to the deck.
      */
     protected void removeAllCardsFromTable() {
-        List<Integer> random = new LinkedList<>();
-        for (int i = 0; i < table.slotToCard.length; i++)
-            random.add(i);
-        Collections.shuffle(random);
-        for (Integer i : random) {
-            for (int j = 0; j < players.length; j++) {
-                if (table.slotstotokens[i][j] != null) {
-                    table.removeToken(j, i);
-                    players[j].availableToken++;
-                    for (int x = 0; x < players[j].setQueue.length; x++) {
-                        if (players[j].setQueue[x] == table.slotToCard[i])//removing the card from the setqueue so that it wont stay there for later checks
-                            players[j].setQueue[x] = -1;
-                    }
-                }
+        table.reshuffle();
+        for (int slot = 0; slot < slotOrder.length; slot++)
+            slotOrder[slot] = slot;
+        for (int k = 0; k < slotOrder.length; k++) {
+            swap(slotOrder, k, k + random.nextInt(slotOrder.length - k));//remove the cards in a random order
+            int i = slotOrder[k];
+            returnTokens(i);
+            int card = table.cardAt(i);
+            if (card != Table.EMPTY) {//the slot may be empty when the deck ran out
+                deck.add(card);
+                table.removeCard(i);
+                env.ui.removeCard(i);
             }
-            deck.add(table.slotToCard[i]);
-            table.removeCard(i);
-            env.ui.removeCard(i);
         }
     }
 
@@ -323,10 +492,9 @@ public class Dealer implements Runnable {
      */
     private void announceWinners() {
         int max = -1, counter = 0;
+        for (int slot = 0; slot < table.slots(); slot++)
+            table.removeTokens(slot, tokenOwners);
         for (int i = 0; i < players.length; i++) {
-            for (int j = 0; j < env.config.tableSize; j++) {
-                table.removeToken(i, j);
-            }
             if (players[i].score() >= max) {
                 if (players[i].score() == max) {
                     counter++;
@@ -345,6 +513,10 @@ public class Dealer implements Runnable {
             }
         }
         env.ui.announceWinner(ans);
+        for (Claim claim = claims.poll(); claim != null; claim = claims.poll())
+            claim.decide(Verdict.DROPPED);
+        env.logger.log(Level.INFO, "Claims: " + claimStats);
+        timer.stop();
         for (int i = playerThread.length - 1; i >= 0; i--) {//ending all players threads gracefully and in reverse order
             players[i].terminate();
             playerThread[i].interrupt();
@@ -353,6 +525,20 @@ public class Dealer implements Runnable {
         terminate();
     }
 
+    /**
+     * @return - the throughput counters of the claims checked by the dealer.
+     */
+    public ClaimStats claimStats() {
+        return claimStats;
+    }
+
+    /**
+     * @return - true iff the game ended by itself (no sets are left), rather than being terminated.
+     */
+    public boolean isOver() {
+        return over;
+    }
+
     public boolean getTerminate() {
         return terminate;
     }
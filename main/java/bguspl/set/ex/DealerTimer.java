@@ -0,0 +1,218 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the timer display of the game (the countdown or the time since the last set, and the freeze times of the
+ * players) from a scheduler thread, so the dealer does not need to wake up to update it.
+ * The display is updated only when a shown value changes: every second, or every 10 milliseconds in the warning zone
+ * of the countdown (the precision shown there). The next update is scheduled for the next time a shown value changes.
+ */
+public class DealerTimer {
+
+    /**
+     * The precision of the countdown while it is in the warning zone (in milliseconds).
+     */
+    private static final long WARNING_PRECISION_MILLIS = 10;
+
+    private static final long SECOND_MILLIS = 1000;
+
+    private final Env env;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * True iff the scheduler belongs to this timer (otherwise it is shared with other timers, and only this timer's
+     * updates are stopped).
+     */
+    private final boolean ownScheduler;
+    private volatile boolean stopped;
+
+    /**
+     * The time the countdown ends at (in countdown mode), or the time the elapsed time is counted from (in the free
+     * play mode). Long.MIN_VALUE if the timer was not started yet.
+     */
+    private volatile long reference = Long.MIN_VALUE;
+
+    /**
+     * The time the freeze of every player ends at (Long.MIN_VALUE if the player is not frozen).
+     */
+    private final long[] freezeEnds;
+
+    /*
+     * The state of the scheduler thread: the values shown and the pending update.
+     */
+    private long shownTime = Long.MIN_VALUE;
+    private boolean shownWarn;
+    private final long[] shownFreezes;
+    private ScheduledFuture<?> next;
+
+    /**
+     * Creates a timer with its own scheduler thread.
+     *
+     * @param env - the game environment.
+     */
+    public DealerTimer(Env env) {
+        this(env, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "timer");
+            thread.setDaemon(true);
+            return thread;
+        }), true);
+    }
+
+    /**
+     * Creates a timer that runs on a scheduler shared with other timers (e.g. of other game rooms).
+     *
+     * @param env       - the game environment.
+     * @param scheduler - the shared scheduler (it is not shut down by the timer).
+     */
+    public DealerTimer(Env env, ScheduledExecutorService scheduler) {
+        this(env, scheduler, false);
+    }
+
+    private DealerTimer(Env env, ScheduledExecutorService scheduler, boolean ownScheduler) {
+        this.env = env;
+        this.scheduler = scheduler;
+        this.ownScheduler = ownScheduler;
+        freezeEnds = new long[env.config.players];
+        shownFreezes = new long[env.config.players];
+        for (int i = 0; i < freezeEnds.length; i++)
+            freezeEnds[i] = shownFreezes[i] = Long.MIN_VALUE;
+    }
+
+    /**
+     * Restarts the timer display: the countdown (until the given time) in countdown mode, or the time since now in the
+     * free play mode.
+     *
+     * @param reshuffleTime - the time the countdown ends at.
+     */
+    public void reset(long reshuffleTime) {
+        reference = env.config.turnTimeoutMillis > 0 ? reshuffleTime : env.clock.millis();
+        update();
+    }
+
+    /**
+     * Shows a player as frozen for the given time.
+     *
+     * @param player - the id of the player.
+     * @param millis - the freeze time (in milliseconds).
+     */
+    public void freeze(int player, long millis) {
+        if (millis <= 0) return;
+        synchronized (freezeEnds) {
+            freezeEnds[player] = env.clock.millis() + millis;
+        }
+        update();
+    }
+
+    /**
+     * @param player - the id of the player.
+     * @return - the time left of the freeze of the player (in milliseconds, 0 if the player is not frozen).
+     */
+    public long freezeLeft(int player) {
+        long end;
+        synchronized (freezeEnds) {
+            end = freezeEnds[player];
+        }
+        return end == Long.MIN_VALUE ? 0 : Math.max(0, end - env.clock.millis());
+    }
+
+    /**
+     * Stops the timer (no updates are shown afterwards).
+     */
+    public void stop() {
+        stopped = true;
+        if (ownScheduler) scheduler.shutdownNow();
+    }
+
+    /**
+     * Requests an immediate update of the display.
+     */
+    private void update() {
+        if (!stopped && !scheduler.isShutdown()) {
+            try {
+                scheduler.execute(this::tick);
+            } catch (RejectedExecutionException ignored) { // stopped concurrently
+            }
+        }
+    }
+
+    /**
+     * Shows the values that changed since the last update, and schedules the next update (runs on the scheduler
+     * thread only).
+     */
+    private void tick() {
+        if (stopped) return;
+        long now = env.clock.millis();
+        long delay = Long.MAX_VALUE;
+        if (reference != Long.MIN_VALUE)
+            delay = env.config.turnTimeoutMillis > 0 ? showCountdown(now) : showElapsed(now);
+        for (int player = 0; player < freezeEnds.length; player++)
+            delay = Math.min(delay, showFreeze(player, now));
+
+        if (next != null) next.cancel(false);
+        next = delay == Long.MAX_VALUE ? null : scheduler.schedule(this::tick, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return - the delay until the shown countdown changes (Long.MAX_VALUE if it ended).
+     */
+    private long showCountdown(long now) {
+        long left = Math.max(0, reference - now);
+        boolean warn = left <= env.config.turnTimeoutWarningMillis;
+        long precision = warn ? WARNING_PRECISION_MILLIS : SECOND_MILLIS;
+        long shown = left - left % precision;
+        if (shown != shownTime || warn != shownWarn) {
+            env.ui.setCountdown(shown, warn);
+            shownTime = shown;
+            shownWarn = warn;
+        }
+        if (left == 0) return Long.MAX_VALUE;
+        long delay = left % precision + 1;
+        return warn ? delay : Math.min(delay, left - env.config.turnTimeoutWarningMillis);
+    }
+
+    /**
+     * @return - the delay until the shown elapsed time changes.
+     */
+    private long showElapsed(long now) {
+        if (env.config.turnTimeoutMillis < 0) return Long.MAX_VALUE; // the elapsed mode shows no time
+        long elapsed = Math.max(0, now - reference);
+        long shown = elapsed - elapsed % SECOND_MILLIS;
+        if (shown != shownTime) {
+            env.ui.setCountdown(shown, false);
+            shownTime = shown;
+        }
+        return SECOND_MILLIS - elapsed % SECOND_MILLIS;
+    }
+
+    /**
+     * @return - the delay until the shown freeze time of the player changes (Long.MAX_VALUE if not frozen).
+     */
+    private long showFreeze(int player, long now) {
+        long end;
+        synchronized (freezeEnds) {
+            end = freezeEnds[player];
+            if (end != Long.MIN_VALUE && end <= now) freezeEnds[player] = Long.MIN_VALUE;
+        }
+        if (end == Long.MIN_VALUE) return Long.MAX_VALUE;
+
+        long left = end - now;
+        if (left <= 0) {
+            env.ui.setFreeze(player, 0);
+            shownFreezes[player] = Long.MIN_VALUE;
+            return Long.MAX_VALUE;
+        }
+        long shown = left - left % SECOND_MILLIS;
+        if (shown != shownFreezes[player]) {
+            env.ui.setFreeze(player, left);
+            shownFreezes[player] = shown;
+        }
+        return left % SECOND_MILLIS + 1;
+    }
+}
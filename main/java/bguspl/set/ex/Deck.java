@@ -0,0 +1,111 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The cards left in the dealer's deck, kept in an array of card ids followed by the free space (so drawing and
+ * returning cards never allocate). Cards are drawn at random, by swapping a random card with the last one (a single
+ * step of a Fisher-Yates shuffle), so the deck never needs to be shuffled as a whole.
+ */
+public class Deck {
+
+    /**
+     * The card ids in the deck (the first size entries).
+     */
+    private final int[] cards;
+    private int size;
+
+    private final Random random;
+
+    /**
+     * Creates a full deck.
+     *
+     * @param config - the game configuration.
+     * @param random - the source of the random draws.
+     */
+    public Deck(Config config, Random random) {
+        this.random = random;
+        cards = new int[config.deckSize];
+        for (int card = 0; card < cards.length; ++card)
+            add(card);
+    }
+
+    /**
+     * @return - the number of cards in the deck.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Draws a random card from the deck.
+     *
+     * @return - the id of the drawn card, or -1 if the deck is empty.
+     */
+    public int draw() {
+        if (size == 0) return -1;
+        int index = random.nextInt(size);
+        int card = cards[index];
+        cards[index] = cards[--size];
+        return card;
+    }
+
+    /**
+     * Draws random cards from the deck into an array.
+     *
+     * @param out   - the array to draw the card ids into (from index 0).
+     * @param count - the number of cards to draw.
+     * @return - the number of cards drawn (less than count if the deck runs out).
+     */
+    public int draw(int[] out, int count) {
+        int drawn = 0;
+        while (drawn < count && size > 0)
+            out[drawn++] = draw();
+        return drawn;
+    }
+
+    /**
+     * @return - the card ids in the deck, in their order in the deck.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(cards, size);
+    }
+
+    /**
+     * Copies the card ids in the deck into an array, in their order in the deck.
+     *
+     * @param out - an array of at least size() entries.
+     * @return - the number of cards in the deck.
+     */
+    public int cards(int[] out) {
+        System.arraycopy(cards, 0, out, 0, size);
+        return size;
+    }
+
+    /**
+     * Replaces the cards in the deck (e.g. when a game is restored from a snapshot).
+     *
+     * @param cards - the card ids to put in the deck, in their order in the deck.
+     */
+    public void restore(int[] cards) {
+        size = 0;
+        for (int card : cards)
+            add(card);
+    }
+
+    /**
+     * Returns a card to the deck.
+     *
+     * @param card - the id of a card that is not in the deck.
+     */
+    public void add(int card) {
+        cards[size++] = card;
+    }
+}
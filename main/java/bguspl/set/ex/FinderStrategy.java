@@ -0,0 +1,33 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+/**
+ * Searches the whole table with the set finder, starting from a random slot (so that the players do not all go for
+ * the same set).
+ */
+public class FinderStrategy extends SetStrategy {
+
+    private final int[] cards;
+    private final int[] set;
+
+    public FinderStrategy(Env env, AiSkill skill) {
+        super(env, skill);
+        cards = new int[env.config.tableSize];
+        set = new int[env.config.featureSize];
+    }
+
+    @Override
+    protected int find(TableView view, int[] slots) {
+        int tableSize = env.config.tableSize;
+        int start = random.nextInt(tableSize), n = 0;
+        for (int i = 0; i < tableSize; i++) {
+            int card = view.cardAt((start + i) % tableSize);
+            if (card != Table.EMPTY) cards[n++] = card;
+        }
+        if (env.util.findSets(cards, n, 1, set) == 0) return 0;
+        for (int i = 0; i < set.length; i++)
+            slots[i] = view.slotOf(set[i]);
+        return set.length;
+    }
+}
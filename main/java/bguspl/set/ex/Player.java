@@ -3,11 +3,11 @@ package bguspl.set.ex;
 import java.math.BigInteger;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Random;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.logging.Level;
 
 import bguspl.set.Env;
+import bguspl.set.IntRing;
+import bguspl.set.Threads;
 
 
 /**
@@ -36,12 +36,12 @@ public class Player implements Runnable {
     /**
      * The thread representing the current player.
      */
-    private Thread playerThread;
+    private volatile Thread playerThread;
 
     /**
      * The thread of the AI (computer) player (an additional thread used to generate key presses).
      */
-    private Thread aiThread;
+    private volatile Thread aiThread;
 
     /**
      * True iff the player is human (not a computer player).
@@ -57,12 +57,33 @@ public class Player implements Runnable {
      * The current score of the player.
      */
     private int score;
-    protected Integer availableToken;
-    protected ArrayBlockingQueue<Integer> pressQueue;
+    /**
+     * The slots of the key presses of the player, waiting for the player thread (offered by a single thread: the
+     * keyboard's or the AI's).
+     */
+    protected final IntRing pressQueue;
+
+    /**
+     * The number of key presses queued (by the pressing thread), and the number handled by the player thread (a press
+     * that completes a set is handled once its claim got a verdict).
+     */
+    private int pressesQueued;
+    private volatile int pressesHandled;
     protected int[] setQueue;
     protected Dealer dealer;
     protected Integer sleep;
 
+    /**
+     * The number of points and penalties the player got (a computer player waits for it or the table to change).
+     */
+    private volatile int verdicts;
+
+    /**
+     * The skill and the strategy of the AI (computer) player.
+     */
+    private final AiSkill aiSkill;
+    private final AiStrategy aiStrategy;
+
 
     /**
      * The class constructor.
@@ -79,13 +100,14 @@ public class Player implements Runnable {
         this.id = id;
         this.human = human;
         this.dealer = dealer;
-        availableToken = env.config.featureSize;
-        pressQueue = new ArrayBlockingQueue<>(env.config.featureSize);
+        pressQueue = new IntRing(env.config.featureSize, env.config.pressWaitStrategy, env.clock);
         setQueue = new int[env.config.featureSize];
         for (int i = 0; i < setQueue.length; i++)
             setQueue[i] = -1;
         this.score = 0;
         sleep = 0;
+        aiSkill = new AiSkill(env.config, env.random.player(id));
+        aiStrategy = AiStrategy.of(env, aiSkill);
 
 
     }
@@ -95,71 +117,66 @@ public class Player implements Runnable {
      */
     @Override
     public void run() {
+        try {
+            play();
+        } finally {
+            env.clock.unregister();//registered by the dealer before starting the thread
+        }
+    }
+
+    /**
+     * The main loop of the player thread.
+     */
+    private void play() {
         while (!Thread.currentThread().isInterrupted() && !terminate) {
             playerThread = Thread.currentThread();
             env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + "starting.");
             if (!human) createArtificialIntelligence();
             while (!terminate) {
-                if (sleep != 0) {//checks if the player got a penalty or point and thus need to sleep for a certain amount of time (the dealer changes this field when he grants a point/penalty for a player)
+                if (sleep != 0) {//checks if the player got a penalty or point and thus need to sleep for a certain amount of time (the dealer changes this field when he grants a point/penalty for a player, and shows the freeze)
                     try {
-                        if (sleep == env.config.pointFreezeMillis) {
-                            env.ui.setFreeze(id, env.config.pointFreezeMillis);
-                        } else {
-                            env.ui.setFreeze(id, env.config.penaltyFreezeMillis);
-                        }
-                        playerThread.sleep(sleep);
+                        env.clock.sleep(sleep);
                     } catch (InterruptedException e) {
                     }
-                    env.ui.setFreeze(id, 0);
                     sleep = 0;
                 }
-                Integer slot;
-                if (!pressQueue.isEmpty() && table.tableReady) {
-                    slot = pressQueue.remove();//the slot that came out of the keypressed method
-                    if (table.slotstotokens[slot][id] == null && availableToken > 0 && table.tableReady) {
-                        table.placeToken(id, slot);
-                        availableToken--;
-                        for (int j = 0; j < env.config.featureSize; j++) {
-                            try {
-                                if (setQueue[j] == -1) {//checking if the spot in the set queue is empty, if it is put the card inside it maybe needs this && table.slotToCard[slot]!=null
-                                    setQueue[j] = table.slotToCard[slot];
+                if (terminate)//the interrupt that wakes the player on termination may have ended the freeze instead
+                    break;
+                int slot;
+                try {
+                    slot = pressQueue.take(() -> terminate);//the slot that came out of the keypressed method (waits for a key press)
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                if (slot == IntRing.EMPTY)
+                    continue;
+                if (table.tableReady) {//presses queued before the table was taken away are dropped
+                    if (!table.hasToken(id, slot)) {
+                        int card = availableTokens() > 0 ? table.placeToken(id, slot) : Table.EMPTY;//EMPTY if the slot has no card (or the table was taken away meanwhile)
+                        if (card != Table.EMPTY) {
+                            for (int j = 0; j < env.config.featureSize; j++) {
+                                if (setQueue[j] == -1) {//the first empty spot in the set queue gets the card
+                                    setQueue[j] = card;
                                     break;
                                 }
-                            } catch (NullPointerException exp) {
-                               //if by some reason we got null in the queue handled this by ignoring this and giving the token back to the player (optimistic try and fail)
-                                availableToken++;
-                                break;
                             }
-                        }
-                        if (availableToken == 0) {
-                            dealer.lock.lock();//locking the fair lock
-                            if (availableToken == 0) {//if by some reason it changed in this time
-                                for (int i = 0; i < setQueue.length; i++) { //giving the dealer my set to check
-                                    dealer.dealerSetQueue[i] = setQueue[i];
-                                }
-                                dealer.checkSetByPlayerId = id;//giving the dealer my id
-                                while (dealer.checkSetByPlayerId == id && !terminate) {
-                                    try {
-                                        if(!terminate)
-                                        Thread.currentThread().sleep(1);
-
-
-                                    } catch (InterruptedException ignore) {}
-                                }
+                            if (availableTokens() == 0) {
+                                Claim claim = table.claim(id, setQueue);//giving the dealer my set to check
+                                dealer.submit(claim);
+                                awaitVerdict(claim);
                             }
-                            dealer.lock.unlock();
                         }
                     } else {
-                        if (table.slotstotokens[slot][id] != null) {
-                            table.removeToken(id, slot);
-                            availableToken++;
+                        int card = table.removeToken(id, slot);//EMPTY if the dealer removed the token meanwhile
+                        if (card != Table.EMPTY) {
                             for (int i = 0; i < env.config.featureSize; i++) {//checking which is the right token to remove
-                                if (setQueue[i] == table.slotToCard[slot])
+                                if (setQueue[i] == card)
                                     setQueue[i] = -1;
                             }
                         }
                     }
                 }
+                pressesHandled++;
             }
             if (!human) try {
                 aiThread.join();
@@ -171,20 +188,58 @@ public class Player implements Runnable {
     }
 
     /**
-     * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it is not full.
+     * Waits until the dealer checks a claim of the player (or until the game is terminated).
+     *
+     * @param claim - the claim submitted to the dealer.
+     */
+    private void awaitVerdict(Claim claim) {
+        while (!terminate) {
+            try {
+                env.clock.idle(() -> terminate || claim.verdict() != null);//lets the virtual time advance meanwhile
+                claim.await();
+                return;
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Creates an additional thread for an AI (computer) player. The main loop of this thread asks the strategy of the
+     * player for key presses, and makes them one reaction time apart. It blocks on the table (woken by its changes)
+     * whenever it has nothing to do: while the player is frozen, the table is not ready or the player thread has not handled its presses yet, and
+     * while the strategy waits for the table or the verdicts of the player to change.
      */
     private void createArtificialIntelligence() {
-        aiThread = new Thread(() -> {
+        aiThread = Threads.newThread(env, () -> {
             env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " starting.");
-            while (!terminate) {
-                if (table.tableReady) {
-                    int slot = (int) (Math.random() * env.config.tableSize);
-                    keyPressed(slot);
+            try {
+                int[] presses = new int[2 * env.config.featureSize];
+                while (!terminate) {
+                    try {
+                        table.await(() -> terminate || acceptsPresses() && pressesHandled == pressesQueued);//lets the virtual time advance
+                        if (terminate) break;
+                        long version = table.version();
+                        int verdicts = this.verdicts;
+                        int count = aiStrategy.choose(table, id, presses);
+                        if (count == AiStrategy.RETRY)
+                            env.clock.sleep(Math.max(1, aiSkill.reactionMillis()));
+                        else if (count == 0)
+                            table.await(() -> terminate || table.version() != version || this.verdicts != verdicts);
+                        for (int i = 0; i < count && !terminate; i++) {
+                            env.clock.sleep(aiSkill.reactionMillis());
+                            table.await(() -> terminate || acceptsPresses());
+                            if (table.version() != version) break;//the presses were chosen for another table
+                            keyPressed(presses[i]);
+                        }
+                    } catch (InterruptedException ignored) {
+                    }
                 }
+            } finally {
+                env.clock.unregister();
             }
-        });
+        }, env.config.playerNames[id] + " ai");
         env.logger.log(Level.INFO, "Thread " + Thread.currentThread().getName() + " terminated.");
+        env.clock.register();
         aiThread.start();
     }
 
@@ -193,23 +248,23 @@ public class Player implements Runnable {
      */
     public void terminate() {
         terminate = true;
-        if (!human) {
-            aiThread.interrupt();
+        Thread thread = playerThread;
+        if (thread != null && thread != Thread.currentThread())
+            thread.interrupt();//wakes the player thread if it waits for a key press
+        thread = aiThread;
+        if (!human && thread != null) {//the game may end before the player thread created the ai thread
+            thread.interrupt();
         }
     }
 
     /**
-     * This method is called when a key is pressed.
+     * This method is called when a key is pressed (by a single thread: the keyboard's, or the AI's).
      *
      * @param slot - the slot corresponding to the key pressed.
      */
     public void keyPressed(int slot) {
-        if (sleep == 0 && table.tableReady == true && pressQueue.size()<3) {
-            try {
-                pressQueue.put(slot);
-            } catch (InterruptedException ignored) {
-            }
-        }
+        if (acceptsPresses() && pressQueue.offer(slot))
+            pressesQueued++;
 
         /**
          * Award a point to a player and perform other related actions.
@@ -219,9 +274,33 @@ public class Player implements Runnable {
          */
     }
 
+    /**
+     * @return - true iff a key press of the player would be queued now (the player is not frozen, the table is ready
+     * and the queue of key presses is not full).
+     */
+    private boolean acceptsPresses() {
+        return sleep == 0 && table.tableReady && pressQueue.size() < pressQueue.capacity();
+    }
+
+    /**
+     * Restores the state of the player from a snapshot (before the player thread starts).
+     *
+     * @param score        - the score of the player.
+     * @param setQueue     - the cards under the tokens of the player (-1 for an empty entry).
+     * @param freezeMillis - the time left of the freeze of the player (in milliseconds).
+     */
+    void restore(int score, int[] setQueue, long freezeMillis) {
+        this.score = score;
+        env.ui.setScore(id, score);
+        for (int i = 0; i < this.setQueue.length; i++)
+            this.setQueue[i] = i < setQueue.length ? setQueue[i] : -1;
+        sleep = (int) freezeMillis;
+    }
+
     public void point() {
         sleep = (int) env.config.pointFreezeMillis;
         score++;
+        verdicts++;
         int ignored = table.countCards(); // this part is just for demonstration in the unit tests
         env.ui.setScore(id, score);
     }
@@ -231,6 +310,14 @@ public class Player implements Runnable {
      */
     public void penalty() {
         sleep = (int) env.config.penaltyFreezeMillis;
+        verdicts++;
+    }
+
+    /**
+     * @return - the number of tokens the player has not placed on the table.
+     */
+    public int availableTokens() {
+        return env.config.featureSize - table.countTokens(id);
     }
 
     public int score() {
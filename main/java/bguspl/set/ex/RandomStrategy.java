@@ -0,0 +1,23 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+/**
+ * Presses a random slot every time (the strategy of the original computer players, which almost never claims a set).
+ */
+public class RandomStrategy implements AiStrategy {
+
+    private final Env env;
+    private final AiSkill skill;
+
+    public RandomStrategy(Env env, AiSkill skill) {
+        this.env = env;
+        this.skill = skill;
+    }
+
+    @Override
+    public int choose(Table table, int player, int[] presses) {
+        presses[0] = skill.random().nextInt(env.config.tableSize);
+        return 1;
+    }
+}
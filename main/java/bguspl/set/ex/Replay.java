@@ -0,0 +1,159 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import bguspl.set.Journal;
+import bguspl.set.JournalReader;
+import bguspl.set.Verdict;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Replays a journal of a game (see JournalWriter) against a table: the cards and tokens are placed and removed as they
+ * were in the game (and shown on the user interface of the environment, if it has one), and every claim is checked
+ * again with the dealer's check (see Claim.check) when the journal gives the dealer's verdict on it. A verdict that
+ * differs from the journal's is counted as a mismatch (e.g. after a change of the rules or of the claim checks).
+ * The replay runs at unlimited speed, or paced by the times of the journal.
+ */
+public class Replay implements Journal {
+
+    private final Env env;
+    private final Table table;
+
+    private JournalReader reader;
+    private double speed;
+    private long start;
+
+    /**
+     * The pending claim of every player, and the results so far.
+     */
+    private final Claim[] pending;
+    private final int[] scores;
+    private long events;
+    private long claims;
+    private long mismatches;
+    private long reshuffles;
+
+    /**
+     * @param env - the environment of the replay (its configuration must have the shape of the journaled game, and its
+     *            clock should be virtual, so the table delays are skipped).
+     */
+    public Replay(Env env) {
+        this.env = env;
+        table = new Table(env);
+        table.unlock();
+        pending = new Claim[env.config.players];
+        scores = new int[env.config.players];
+    }
+
+    /**
+     * Replays a journal to its end.
+     *
+     * @param reader - the reader of the journal (its header was read).
+     * @param speed  - the speed of the replay relative to the journaled game (e.g. 2 for twice as fast), or 0 to
+     *               replay at unlimited speed.
+     * @return - the results of the replay.
+     * @throws IOException          - if the journal cannot be read, or does not match the configuration.
+     * @throws InterruptedException - if the replay is interrupted while pacing.
+     */
+    public Result run(JournalReader reader, double speed) throws IOException, InterruptedException {
+        if (reader.featureSize != env.config.featureSize || reader.featureCount != env.config.featureCount
+                || reader.tableSize != env.config.tableSize || reader.players != env.config.players)
+            throw new IOException("the journal is of a game of another shape");
+        this.reader = reader;
+        this.speed = speed;
+        start = System.nanoTime();
+        while (reader.next(this)) {
+            events++;
+            if (speed > 0) pace();
+        }
+        return new Result(events, claims, mismatches, reshuffles, scores.clone(), System.nanoTime() - start);
+    }
+
+    /**
+     * Waits until the time of the next event (the events are applied right after they are read, so the wait follows
+     * them).
+     */
+    private void pace() throws InterruptedException {
+        long due = (long) (reader.time() / speed * 1e6);
+        long left = due - (System.nanoTime() - start);
+        if (left > 0) Thread.sleep(left / 1_000_000, (int) (left % 1_000_000));
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        table.placeCard(card, slot);
+        env.ui.placeCard(card, slot);
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        if (table.cardAt(slot) != Table.EMPTY) table.removeCard(slot);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        table.placeToken(player, slot);
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        table.removeToken(player, slot);
+    }
+
+    @Override
+    public void claim(int player, int[] cards) {
+        pending[player] = table.claim(player, cards);
+        claims++;
+    }
+
+    @Override
+    public void verdict(int player, Verdict verdict) {
+        Claim claim = pending[player];
+        pending[player] = null;
+        if (claim == null || Claim.check(env, table, claim) != verdict) mismatches++;
+        if (verdict == Verdict.LEGAL) env.ui.setScore(player, ++scores[player]);
+    }
+
+    @Override
+    public void reshuffle() {
+        reshuffles++;
+    }
+
+    /**
+     * The results of a replay.
+     */
+    public static class Result {
+
+        public final long events;
+        public final long claims;
+
+        /**
+         * The number of claims whose verdict differs from the journal's.
+         */
+        public final long mismatches;
+        public final long reshuffles;
+
+        /**
+         * The scores of the players at the end of the replay.
+         */
+        public final int[] scores;
+        public final long nanos;
+
+        private Result(long events, long claims, long mismatches, long reshuffles, int[] scores, long nanos) {
+            this.events = events;
+            this.claims = claims;
+            this.mismatches = mismatches;
+            this.reshuffles = reshuffles;
+            this.scores = scores;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d events (%.0f events/sec): %d claims, %d verdict mismatches, %d reshuffles; scores %s",
+                    events, nanos == 0 ? 0 : events / (nanos / 1e9), claims, mismatches, reshuffles,
+                    Arrays.toString(scores));
+        }
+    }
+}
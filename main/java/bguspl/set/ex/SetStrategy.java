@@ -0,0 +1,66 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Random;
+
+/**
+ * A strategy that looks for a set on the table and moves the tokens of the player to it. With the error rate of the
+ * player's skill, one card of the set is swapped for another card on the table before it is claimed. The set is looked
+ * for on a view of the table (see Table.view), so it is never made of cards from different deals.
+ */
+public abstract class SetStrategy implements AiStrategy {
+
+    protected final Env env;
+    protected final AiSkill skill;
+    protected final Random random;
+
+    /**
+     * The slots of the set found.
+     */
+    private final int[] target;
+
+    protected SetStrategy(Env env, AiSkill skill) {
+        this.env = env;
+        this.skill = skill;
+        random = skill.random();
+        target = new int[env.config.featureSize];
+    }
+
+    /**
+     * Looks for a set on the table.
+     *
+     * @param view  - a view of the table.
+     * @param slots - an array of featureSize entries to fill with the slots of the set found.
+     * @return - featureSize if a set was found, 0 if there is none on the table, or RETRY.
+     */
+    protected abstract int find(TableView view, int[] slots);
+
+    @Override
+    public int choose(Table table, int player, int[] presses) {
+        TableView view = table.view();
+        if (view.version != table.version()) return RETRY; // the dealer is changing the table
+        int found = find(view, target);
+        if (found <= 0) return found;
+        if (skill.errs()) err(view, target, found);
+        return AiStrategy.pressesToward(table, player, target, found, presses);
+    }
+
+    /**
+     * Swaps a random slot of a set for a random other slot with a card.
+     */
+    private void err(TableView view, int[] slots, int n) {
+        int tableSize = env.config.tableSize;
+        int start = random.nextInt(tableSize);
+        for (int i = 0; i < tableSize; i++) {
+            int slot = (start + i) % tableSize;
+            boolean inSet = false;
+            for (int j = 0; j < n && !inSet; j++)
+                inSet = slots[j] == slot;
+            if (!inSet && view.cardAt(slot) != Table.EMPTY) {
+                slots[random.nextInt(n)] = slot;
+                return;
+            }
+        }
+    }
+}
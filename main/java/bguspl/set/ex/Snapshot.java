@@ -0,0 +1,228 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * A copy of the state of a game at one moment, which a game can be restored from (see Dealer.snapshot and
+ * Dealer.restore): the order of the cards in the deck, the card in every slot of the table, and for every player its
+ * score, its set queue (the cards under its tokens, in the order they were placed) and the time left of its freeze,
+ * and the time left of the countdown.
+ * <p>
+ * A snapshot is written as a header (the magic number, the format version and the length of the payload), the payload
+ * and the CRC-32 checksum of the payload. The payload starts with the time the snapshot was taken and the shape of the
+ * game (the feature size and count, the table size and the number of players), and holds all the card ids as ints. A snapshot
+ * with a card id that is not one of a card of its shape (or -1, in the slots and the set queues) is taken as corrupt.
+ */
+public class Snapshot {
+
+    static final int MAGIC = 0x53455453; // "SETS"
+    static final int VERSION = 2;
+
+    /**
+     * The longest payload read (larger lengths are taken as a corrupt header).
+     */
+    private static final int MAX_PAYLOAD_BYTES = 1 << 24;
+
+    /**
+     * The time the snapshot was taken (in milliseconds of the game's clock).
+     */
+    public final long time;
+
+    /*
+     * The shape of the game.
+     */
+    public final int featureSize;
+    public final int featureCount;
+    public final int tableSize;
+    public final int players;
+
+    /**
+     * The card ids in the deck, in their order in the deck.
+     */
+    final int[] deck;
+
+    /**
+     * The card in every slot of the table (-1 if none).
+     */
+    final int[] slotToCard;
+
+    /**
+     * The score, the set queue (-1 for an empty entry) and the time left of the freeze (in milliseconds) of every
+     * player.
+     */
+    final int[] scores;
+    final int[][] setQueues;
+    final long[] freezeMillis;
+
+    /**
+     * The time left until the dealer reshuffles (in milliseconds), or -1 in the modes without a countdown.
+     */
+    final long countdownMillis;
+
+    Snapshot(long time, Config config, int[] deck, int[] slotToCard, int[] scores, int[][] setQueues,
+             long[] freezeMillis, long countdownMillis) {
+        this(time, config.featureSize, config.featureCount, config.tableSize, config.players, deck, slotToCard, scores,
+                setQueues, freezeMillis, countdownMillis);
+    }
+
+    private Snapshot(long time, int featureSize, int featureCount, int tableSize, int players, int[] deck,
+                     int[] slotToCard, int[] scores, int[][] setQueues, long[] freezeMillis, long countdownMillis) {
+        this.time = time;
+        this.featureSize = featureSize;
+        this.featureCount = featureCount;
+        this.tableSize = tableSize;
+        this.players = players;
+        this.deck = deck;
+        this.slotToCard = slotToCard;
+        this.scores = scores;
+        this.setQueues = setQueues;
+        this.freezeMillis = freezeMillis;
+        this.countdownMillis = countdownMillis;
+    }
+
+    /**
+     * @param config - the configuration of a game.
+     * @return - true iff the snapshot has the shape of the game (so the game can be restored from it).
+     */
+    public boolean fits(Config config) {
+        return featureSize == config.featureSize && featureCount == config.featureCount
+                && tableSize == config.tableSize && players == config.players;
+    }
+
+    /**
+     * Writes the snapshot.
+     *
+     * @param out - the stream to write to (not closed).
+     * @throws IOException - if writing fails.
+     */
+    public void write(OutputStream out) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeLong(time);
+        payload.writeByte(featureSize);
+        payload.writeByte(featureCount);
+        payload.writeShort(tableSize);
+        payload.writeShort(players);
+        payload.writeLong(countdownMillis);
+        payload.writeInt(deck.length);
+        for (int card : deck) payload.writeInt(card);
+        for (int card : slotToCard) payload.writeInt(card);
+        for (int player = 0; player < players; player++) {
+            payload.writeInt(scores[player]);
+            payload.writeLong(freezeMillis[player]);
+            for (int card : setQueues[player]) payload.writeInt(card);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray(), 0, bytes.size());
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(bytes.size());
+        bytes.writeTo(data);
+        data.writeInt((int) crc.getValue());
+        data.flush();
+    }
+
+    /**
+     * Reads a snapshot.
+     *
+     * @param in - the stream to read from (not closed).
+     * @return - the snapshot.
+     * @throws IOException - if reading fails, or the stream does not hold an intact snapshot of this format version.
+     */
+    public static Snapshot read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) throw new IOException("not a game snapshot");
+        int version = data.readUnsignedByte();
+        if (version != VERSION) throw new IOException("unsupported snapshot version " + version);
+        int length = data.readInt();
+        if (length < 0 || length > MAX_PAYLOAD_BYTES) throw new IOException("corrupt snapshot header");
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        if (data.readInt() != (int) crc.getValue()) throw new IOException("corrupt snapshot (checksum mismatch)");
+
+        DataInputStream payload = new DataInputStream(new ByteArrayInputStream(bytes));
+        long time = payload.readLong();
+        int featureSize = payload.readUnsignedByte();
+        int featureCount = payload.readUnsignedByte();
+        int tableSize = payload.readUnsignedShort();
+        int players = payload.readUnsignedShort();
+        long countdownMillis = payload.readLong();
+        int deckSize = (int) Math.min(Math.pow(featureSize, featureCount), Integer.MAX_VALUE);
+        int deckLength = payload.readInt();
+        if (deckLength < 0 || deckLength > deckSize) throw new IOException("corrupt snapshot (deck length)");
+        int[] deck = readCards(payload, deckLength, 0, deckSize);
+        int[] slotToCard = readCards(payload, tableSize, -1, deckSize);
+        int[] scores = new int[players];
+        long[] freezeMillis = new long[players];
+        int[][] setQueues = new int[players][];
+        for (int player = 0; player < players; player++) {
+            scores[player] = payload.readInt();
+            freezeMillis[player] = payload.readLong();
+            setQueues[player] = readCards(payload, featureSize, -1, deckSize);
+        }
+        return new Snapshot(time, featureSize, featureCount, tableSize, players, deck, slotToCard, scores, setQueues,
+                freezeMillis, countdownMillis);
+    }
+
+    /**
+     * Reads count card ids, each between min (-1 where an entry may be empty) and deckSize - 1.
+     */
+    private static int[] readCards(DataInputStream in, int count, int min, int deckSize) throws IOException {
+        int[] cards = new int[count];
+        for (int i = 0; i < count; i++) {
+            cards[i] = in.readInt();
+            if (cards[i] < min || cards[i] >= deckSize)
+                throw new IOException("corrupt snapshot (card id " + cards[i] + " out of range)");
+        }
+        return cards;
+    }
+
+    /**
+     * Saves the snapshot to a file, replacing it atomically (a crash while saving leaves the previous snapshot).
+     *
+     * @param file - the file to save to.
+     * @throws IOException - if the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            write(out);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Loads a snapshot from a file.
+     *
+     * @param file - the file to load.
+     * @return - the snapshot.
+     * @throws IOException - if the file cannot be read, or does not hold an intact snapshot.
+     */
+    public static Snapshot load(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(new BufferedInputStream(in));
+        }
+    }
+}
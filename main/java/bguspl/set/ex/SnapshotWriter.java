@@ -0,0 +1,100 @@
+package bguspl.set.ex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Saves the snapshots of a game to a file on a background thread, so the dealer only copies the state of the game
+ * (see Dealer.snapshot). Only the latest snapshot is saved: a snapshot given while an earlier one waits to be saved
+ * replaces it. If saving fails, the error is logged and the game goes on.
+ */
+public class SnapshotWriter implements Closeable {
+
+    private final Logger logger;
+    private final Path file;
+
+    /**
+     * The interval between the snapshots taken by the dealer (in milliseconds).
+     */
+    public final long intervalMillis;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The snapshot waiting to be saved (null if none).
+     */
+    private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+
+    /**
+     * @param logger         - the logger to report errors to.
+     * @param file           - the file to save the snapshots to.
+     * @param intervalMillis - the interval between the snapshots taken by the dealer (in milliseconds).
+     */
+    public SnapshotWriter(Logger logger, Path file, long intervalMillis) {
+        this.logger = logger;
+        this.file = file;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Saves a snapshot in the background (replacing any snapshot that is not saved yet).
+     *
+     * @param snapshot - the snapshot to save.
+     */
+    public void save(Snapshot snapshot) {
+        if (pending.getAndSet(snapshot) == null)
+            executor.execute(this::savePending);
+    }
+
+    private void savePending() {
+        Snapshot snapshot = pending.getAndSet(null);
+        if (snapshot == null) return;
+        long start = System.nanoTime();
+        try {
+            snapshot.save(file);
+            logger.log(Level.FINE, "snapshot saved in " + TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start)
+                    + " us");
+        } catch (IOException e) {
+            logger.severe("cannot save the snapshot " + file + ": " + e);
+        }
+    }
+
+    /**
+     * Deletes the snapshot file in the background, after the snapshots given before (e.g. when the game is over, so
+     * the next game does not resume it).
+     */
+    public void delete() {
+        pending.set(null);
+        executor.execute(() -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.severe("cannot delete the snapshot " + file + ": " + e);
+            }
+        });
+    }
+
+    /**
+     * Waits for the pending snapshot to be saved, and stops the background thread.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+        }
+    }
+}
@@ -1,49 +1,154 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.SetIndex;
 
+import java.lang.invoke.VarHandle;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 
 /**
  * This class contains the data that is visible to the player.
+ * <p>
+ * The cards and the tokens are kept in primitive arrays, and every slot has its own lock: the dealer changes the card
+ * of a slot, and a player places or removes its token on a slot, under the write lock of the slot only, so players on
+ * different slots never contend. Readers (cardAt, slotOf) take an optimistic stamp of the slot and read without
+ * locking, falling back to the read lock only if a writer changed the slot meanwhile.
+ * <p>
+ * The tokens are kept twice, as bitsets: the players with a token on every slot (so all the tokens on a slot are found
+ * and cleared a word of 64 players at a time), and the slots with a token of every player (so the tokens of a player
+ * are counted and listed a word of 64 slots at a time, and hasToken reads a single bit without locking).
+ * <p>
+ * Readers that need the whole table at once take an immutable view of it (see view), which never tears: a view is
+ * copied between changes and validated by the sequence of the table, and while the dealer changes the table (between
+ * lock and unlock) the view of the table before the batch is returned, so a half dealt or half removed table is never
+ * seen.
  *
  * @inv slotToCard[x] == y iff cardToSlot[y] == x
  */
 public class Table {
 
+    /**
+     * The value of an empty slot, and of the slot of a card that is not on the table.
+     */
+    public static final int EMPTY = -1;
+
     /**
      * The game environment object.
      */
     private final Env env;
 
     /**
-     * Mapping between a slot and the card placed in it (null if none).
+     * Mapping between a slot and the card placed in it (EMPTY if none).
+     */
+    private final int[] slotToCard;
+
+    /**
+     * Mapping between a card and the slot it is in (EMPTY if none).
+     */
+    private final int[] cardToSlot;
+
+    /**
+     * The number of words of a bitset of players, and of a bitset of slots.
+     */
+    private final int playerWords;
+    private final int slotWords;
+
+    /**
+     * The players with a token on every slot: playerWords words per slot (guarded by the lock of the slot).
+     */
+    private final long[] slotTokens;
+
+    /**
+     * The slots with a token of every player: slotWords words per player (changed under the lock of the slot of the
+     * bit, with an atomic update, as the bits of a word belong to different slots).
+     */
+    private final AtomicLongArray playerTokens;
+
+    /**
+     * The lock of every slot, guarding its card (in slotToCard and cardToSlot) and its tokens.
+     */
+    private final StampedLock[] slotLocks;
+
+    /**
+     * True iff the table takes tokens (changed by the dealer with lock and unlock).
+     */
+    protected volatile boolean tableReady;
+
+    /**
+     * The sequence of the table: the number of its changes (times CHANGE) plus the number of its changes in progress
+     * (a change of a slot, or the dealer's batch of changes while the table is locked).
+     */
+    private final AtomicLong sequence = new AtomicLong(1); // the table is created locked
+    private static final long CHANGE = 1L << 20;
+    private static final long IN_PROGRESS = CHANGE - 1;
+
+    /**
+     * The last view of the table.
+     */
+    private final AtomicReference<TableView> view;
+
+    /**
+     * The listeners to the changes of the table (replaced as a whole on every subscription, so publishing a change
+     * neither locks nor allocates).
+     */
+    private volatile TableListener[] listeners = new TableListener[0];
+
+    /**
+     * The number of threads blocked in await (the clock is signalled on every change only while there are some).
      */
-    protected final Integer[] slotToCard; // card per slot (if any)
+    private final AtomicInteger waiters = new AtomicInteger();
 
     /**
-     * Mapping between a card and the slot it is in (null if none).
+     * The legal sets among the cards on the table (kept up to date by placeCard and removeCard).
      */
-    protected final Integer[] cardToSlot; // slot per card (if any)
-    protected Integer[][] slotstotokens;//maping between the slots and the player's token (tablesize X players.length array)
-    protected boolean tableReady;
+    private final SetIndex setIndex;
+
+    /**
+     * The version of the table, increased whenever a card is placed or removed.
+     */
+    private volatile long version;
+
+    /**
+     * The version of the table when the card in each slot was placed or removed.
+     */
+    private final long[] slotStamps;
 
     /**
      * Constructor for testing.
      *
      * @param env        - the game environment objects.
-     * @param slotToCard - mapping between a slot and the card placed in it (null if none).
-     * @param cardToSlot - mapping between a card and the slot it is in (null if none).
+     * @param slotToCard - mapping between a slot and the card placed in it (EMPTY if none).
+     * @param cardToSlot - mapping between a card and the slot it is in (EMPTY if none).
      */
-    public Table(Env env, Integer[] slotToCard, Integer[] cardToSlot) {
+    public Table(Env env, int[] slotToCard, int[] cardToSlot) {
         tableReady = false;
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
-        slotstotokens = new Integer[env.config.tableSize][env.config.players];
+        playerWords = (env.config.players + 63) >>> 6;
+        slotWords = (slotToCard.length + 63) >>> 6;
+        slotTokens = new long[slotToCard.length * playerWords];
+        playerTokens = new AtomicLongArray(env.config.players * slotWords);
+        slotLocks = new StampedLock[slotToCard.length];
+        Arrays.setAll(slotLocks, slot -> new StampedLock());
+        setIndex = new SetIndex(env.config);
+        slotStamps = new long[slotToCard.length];
+        view = new AtomicReference<>(new TableView(-1, -1, slotToCard.clone(), slotTokens.clone(), playerWords));
+        if (env.config.hints)
+            subscribe(new TableListener() {
+                @Override
+                public void unlocked() {
+                    hints();
+                }
+            });
     }
 
     /**
@@ -52,17 +157,106 @@ public class Table {
      * @param env - the game environment objects.
      */
     public Table(Env env) {
-        this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
+        this(env, filled(env.config.tableSize), filled(env.config.deckSize));
+    }
+
+    private static int[] filled(int length) {
+        int[] array = new int[length];
+        Arrays.fill(array, EMPTY);
+        return array;
+    }
+
+    /**
+     * @return - the number of slots on the table.
+     */
+    public int slots() {
+        return slotToCard.length;
+    }
+
+    /**
+     * @param slot - a slot.
+     * @return - the card in the slot, or EMPTY if there is none.
+     */
+    public int cardAt(int slot) {
+        StampedLock lock = slotLocks[slot];
+        long stamp = lock.tryOptimisticRead();
+        int card = slotToCard[slot];
+        if (lock.validate(stamp)) return card;
+        stamp = lock.readLock();
+        try {
+            return slotToCard[slot];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @param card - a card id.
+     * @return - the slot of the card, or EMPTY if it is not on the table.
+     */
+    public int slotOf(int card) {
+        if (card < 0 || card >= cardToSlot.length) return EMPTY;
+        int slot = cardToSlot[card];
+        return slot != EMPTY && cardAt(slot) == card ? slot : EMPTY; // validated through the lock of the slot
+    }
+
+    /**
+     * @param player - the id of a player.
+     * @param slot   - a slot.
+     * @return - true iff the player has a token on the slot.
+     */
+    public boolean hasToken(int player, int slot) {
+        return (playerTokens.get(player * slotWords + (slot >>> 6)) & 1L << slot) != 0;
+    }
+
+    /**
+     * @param player - the id of a player.
+     * @return - the number of tokens of the player on the table.
+     */
+    public int countTokens(int player) {
+        int count = 0;
+        for (int w = 0; w < slotWords; w++)
+            count += Long.bitCount(playerTokens.get(player * slotWords + w));
+        return count;
+    }
+
+    /**
+     * Lists the slots of the tokens of a player.
+     *
+     * @param player - the id of a player.
+     * @param slots  - an array to fill with the slots (in increasing order).
+     * @return - the number of tokens of the player.
+     */
+    public int tokens(int player, int[] slots) {
+        int count = 0;
+        for (int w = 0; w < slotWords; w++)
+            for (long bits = playerTokens.get(player * slotWords + w); bits != 0; bits &= bits - 1)
+                slots[count++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+        return count;
+    }
+
+    /**
+     * Sets or clears the bit of a player in the bitset of the slots of its tokens (the lock of the slot is held).
+     */
+    private void markToken(int player, int slot, boolean token) {
+        int index = player * slotWords + (slot >>> 6);
+        long bit = 1L << slot;
+        long word;
+        do {
+            word = playerTokens.get(index);
+        } while (!playerTokens.compareAndSet(index, word, token ? word | bit : word & ~bit));
     }
 
     /**
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        TableView view = view();
+        int[] cards = new int[view.slots()];
+        int n = view.cards(cards);
+        env.util.streamSets(cards, n).forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
-            List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
+            List<Integer> slots = Arrays.stream(set).mapToObj(view::slotOf).sorted().collect(Collectors.toList());
             int[][] features = env.util.cardsToFeatures(set);
             System.out.println(sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
         });
@@ -75,12 +269,208 @@ public class Table {
      */
     public int countCards() {
         int cards = 0;
-        for (Integer card : slotToCard)
-            if (card != null)
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            if (cardAt(slot) != EMPTY)
                 ++cards;
         return cards;
     }
 
+    /**
+     * Count the number of legal sets currently on the table.
+     *
+     * @return - the number of sets on the table.
+     */
+    public long countSets() {
+        return setIndex.countSets();
+    }
+
+    /**
+     * Count the number of legal sets on the table that the card in a slot belongs to.
+     *
+     * @param slot - the slot of the card.
+     * @return - the number of sets on the table containing the card (0 if the slot is empty).
+     */
+    public int countSets(int slot) {
+        int card = cardAt(slot);
+        return card == EMPTY ? 0 : setIndex.countSets(card);
+    }
+
+    /**
+     * @return - the version of the table (increased whenever a card is placed or removed).
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Starts a change of a slot: counts it in the sequence and locks the slot.
+     */
+    private long beginChange(StampedLock lock) {
+        sequence.getAndIncrement();
+        return lock.writeLock();
+    }
+
+    /**
+     * Ends a change of a slot.
+     */
+    private void endChange(StampedLock lock, long stamp) {
+        lock.unlockWrite(stamp);
+        sequence.getAndAdd(IN_PROGRESS);
+    }
+
+    /**
+     * Returns an immutable view of the table. The view is copied without locking (reusing the arrays of the last view
+     * that did not change) and is kept only if no change started meanwhile, so readers never block the writers. While
+     * the table is locked, the view of the table when it was locked is returned; a change of a token in progress is
+     * waited for with a spin (it takes a fraction of a microsecond).
+     *
+     * @return - the view of the table.
+     */
+    public TableView view() {
+        while (true) {
+            TableView last = view.get();
+            long before = sequence.get();
+            if (last.sequence == before) return last;
+            if ((before & IN_PROGRESS) != 0) {
+                if (!tableReady) return last;
+                Thread.onSpinWait();
+                continue;
+            }
+            long version = this.version;
+            int[] cards = version == last.version ? last.slotToCard : slotToCard.clone();
+            long[] tokens = Arrays.equals(slotTokens, last.slotTokens) ? last.slotTokens : slotTokens.clone();
+            VarHandle.acquireFence(); // the copies are read before the sequence is validated
+            if (sequence.get() != before) continue;
+            TableView next = new TableView(before, version, cards, tokens, playerWords);
+            view.compareAndSet(last, next);
+            return next;
+        }
+    }
+
+    /**
+     * Subscribes a listener to the changes of the table.
+     *
+     * @param listener - the listener.
+     */
+    public synchronized void subscribe(TableListener listener) {
+        TableListener[] current = listeners;
+        TableListener[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = listener;
+        listeners = next;
+    }
+
+    /**
+     * Unsubscribes a listener from the changes of the table.
+     *
+     * @param listener - the listener (ignored if it is not subscribed).
+     */
+    public synchronized void unsubscribe(TableListener listener) {
+        listeners = Arrays.stream(listeners).filter(l -> l != listener).toArray(TableListener[]::new);
+    }
+
+    /**
+     * Blocks until a condition holds, checking it again whenever the table changes (and whenever another participant
+     * of the clock signals it). The condition should depend on volatile state only (e.g. the version of the table,
+     * or tableReady), which is written before the change is published.
+     *
+     * @param condition - the condition to wait for.
+     * @throws InterruptedException - if the thread is interrupted while waiting.
+     */
+    public void await(BooleanSupplier condition) throws InterruptedException {
+        waiters.incrementAndGet();
+        try {
+            env.clock.idle(condition);
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * Wakes the threads blocked in await, if there are any.
+     */
+    private void changed() {
+        if (waiters.get() > 0) env.clock.signal();
+    }
+
+    /**
+     * Stops the table from taking tokens (before the dealer changes it).
+     */
+    public void lock() {
+        if (!tableReady) return;
+        view(); // the view of the table while it is locked
+        sequence.getAndIncrement();
+        tableReady = false;
+        for (TableListener listener : listeners) listener.locked();
+        changed();
+    }
+
+    /**
+     * Lets the table take tokens again.
+     */
+    public void unlock() {
+        if (tableReady) return;
+        tableReady = true;
+        sequence.getAndAdd(IN_PROGRESS);
+        view();
+        for (TableListener listener : listeners) listener.unlocked();
+        changed();
+    }
+
+    /**
+     * Announces that all the cards are about to be returned to the deck (and journals it).
+     */
+    public void reshuffle() {
+        env.journal.reshuffle();
+        for (TableListener listener : listeners) listener.reshuffled();
+        changed();
+    }
+
+    /**
+     * Stamps a slot with a new version of the table (the stamp is written before the version is published, so a
+     * thread that reads the version first sees the stamps of that version).
+     */
+    private void stamp(int slot) {
+        long next = version + 1;
+        slotStamps[slot] = next;
+        version = next;
+    }
+
+    /**
+     * Creates a claim of a set of cards, stamped with the current version of the table and of the slots of the cards
+     * (and journals it).
+     *
+     * @param player - the id of the claiming player.
+     * @param cards  - the claimed card ids.
+     * @return - the claim (with a stamp of -1 for every card that is not on the table).
+     */
+    public Claim claim(int player, int[] cards) {
+        long current = version;
+        long[] stamps = new long[cards.length];
+        for (int i = 0; i < cards.length; ++i) {
+            int slot = slotOf(cards[i]);
+            stamps[i] = slot == EMPTY ? -1 : slotStamps[slot];
+        }
+        env.journal.claim(player, cards);
+        return new Claim(player, cards, current, stamps);
+    }
+
+    /**
+     * Checks if a claim is still current: all of its cards are still in the slots they were in when it was made.
+     *
+     * @param claim - the claim to check.
+     * @return - true iff none of the slots of the claimed cards changed since the claim was made.
+     */
+    public boolean isCurrent(Claim claim) {
+        for (long stamp : claim.stamps)
+            if (stamp < 0) return false;
+        if (claim.version == version) return true;
+        for (int i = 0; i < claim.cards.length; ++i) {
+            int slot = slotOf(claim.cards[i]);
+            if (slot == EMPTY || slotStamps[slot] != claim.stamps[i]) return false;
+        }
+        return true;
+    }
+
     /**
      * Places a card on the table in a grid slot.
      *
@@ -90,11 +480,37 @@ public class Table {
      */
     public void placeCard(int card, int slot) {
         try {
-            Thread.sleep(env.config.tableDelayMillis);
+            env.clock.sleep(env.config.tableDelayMillis);
         } catch (InterruptedException ignored) {
         }
-        cardToSlot[card] = slot;
-        slotToCard[slot] = card;
+        place(card, slot);
+    }
+
+    /**
+     * Places a card on the table at once (without the delay of dealing it, e.g. when a game is restored).
+     *
+     * @param card - the card id to place in the slot.
+     * @param slot - the slot in which the card should be placed.
+     */
+    void place(int card, int slot) {
+        StampedLock lock = slotLocks[slot];
+        long stamp = beginChange(lock);
+        try {
+            int replaced = slotToCard[slot];
+            if (replaced != EMPTY) {
+                setIndex.remove(replaced);
+                cardToSlot[replaced] = EMPTY;
+            }
+            cardToSlot[card] = slot;
+            slotToCard[slot] = card;
+            setIndex.add(card);
+            stamp(slot);
+            env.journal.placeCard(card, slot);
+        } finally {
+            endChange(lock, stamp);
+        }
+        for (TableListener listener : listeners) listener.cardPlaced(card, slot, version);
+        changed();
     }
 
     /**
@@ -104,28 +520,55 @@ public class Table {
      */
     public void removeCard(int slot) {
         try {
-            Thread.sleep(env.config.tableDelayMillis);
+            env.clock.sleep(env.config.tableDelayMillis);
         } catch (InterruptedException ignored) {
         }
-        int x = slotToCard[slot];
-        env.ui.removeCard(cardToSlot[x]);
-        slotToCard[slot] = null;
-        cardToSlot[x] = null;
+        int x;
+        StampedLock lock = slotLocks[slot];
+        long stamp = beginChange(lock);
+        try {
+            x = slotToCard[slot];
+            if (x == EMPTY) return;
+            slotToCard[slot] = EMPTY;
+            cardToSlot[x] = EMPTY;
+            setIndex.remove(x);
+            stamp(slot);
+            env.journal.removeCard(slot);
+        } finally {
+            endChange(lock, stamp);
+        }
+        env.ui.removeCard(slot);
+        for (TableListener listener : listeners) listener.cardRemoved(x, slot, version);
+        changed();
     }
 
     /**
-     * Places a player token on a grid slot.
+     * Places a player token on a grid slot (if the table takes tokens, the slot has a card and the player has no token
+     * on it yet).
      *
      * @param player - the player the token belongs to.
      * @param slot   - the slot on which to place the token.
+     * @return - the card under the token, or EMPTY if no token was placed.
      */
-    public void placeToken(int player, int slot) {
-        if (tableReady) {
-            if (slotstotokens[slot][player] == null && slotToCard[slot] != null) {
-                slotstotokens[slot][player] = 1;
-                env.ui.placeToken(player, slot);
-            }
+    public int placeToken(int player, int slot) {
+        int card;
+        StampedLock lock = slotLocks[slot];
+        long stamp = beginChange(lock);
+        try {
+            card = slotToCard[slot];
+            int index = slot * playerWords + (player >>> 6);
+            long bit = 1L << player;
+            if (!tableReady || card == EMPTY || (slotTokens[index] & bit) != 0) return EMPTY;
+            slotTokens[index] |= bit;
+            markToken(player, slot, true);
+            env.journal.placeToken(player, slot);
+        } finally {
+            endChange(lock, stamp);
         }
+        env.ui.placeToken(player, slot);
+        for (TableListener listener : listeners) listener.tokenPlaced(player, slot);
+        changed();
+        return card;
     }
 
     /**
@@ -133,13 +576,61 @@ public class Table {
      *
      * @param player - the player the token belongs to.
      * @param slot   - the slot from which to remove the token.
-     * @return - true iff a token was successfully removed.
-     */
-    public boolean removeToken(int player, int slot) {
-        if (slotstotokens[slot][player] != null) {
-            slotstotokens[slot][player] = null;
-            env.ui.removeToken(player, slot);
-            return true;
-        } else return false;
+     * @return - the card under the token, or EMPTY if the player had no token on the slot.
+     */
+    public int removeToken(int player, int slot) {
+        int card;
+        StampedLock lock = slotLocks[slot];
+        long stamp = beginChange(lock);
+        try {
+            int index = slot * playerWords + (player >>> 6);
+            long bit = 1L << player;
+            if ((slotTokens[index] & bit) == 0) return EMPTY;
+            slotTokens[index] &= ~bit;
+            markToken(player, slot, false);
+            card = slotToCard[slot];
+            env.journal.removeToken(player, slot);
+        } finally {
+            endChange(lock, stamp);
+        }
+        env.ui.removeToken(player, slot);
+        for (TableListener listener : listeners) listener.tokenRemoved(player, slot);
+        changed();
+        return card;
+    }
+
+    /**
+     * Removes all the tokens from a grid slot.
+     *
+     * @param slot    - the slot from which to remove the tokens.
+     * @param players - an array of at least config.players entries, to fill with the ids of the players whose tokens
+     *                were removed (in increasing order).
+     * @return - the number of tokens removed.
+     */
+    public int removeTokens(int slot, int[] players) {
+        int count = 0;
+        StampedLock lock = slotLocks[slot];
+        long stamp = beginChange(lock);
+        try {
+            for (int w = 0; w < playerWords; w++) {
+                int index = slot * playerWords + w;
+                for (long bits = slotTokens[index]; bits != 0; bits &= bits - 1) {
+                    int player = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    markToken(player, slot, false);
+                    env.journal.removeToken(player, slot);
+                    players[count++] = player;
+                }
+                slotTokens[index] = 0;
+            }
+        } finally {
+            endChange(lock, stamp);
+        }
+        if (count == 0) return 0;
+        env.ui.removeTokens(slot);
+        for (TableListener listener : listeners)
+            for (int i = 0; i < count; i++)
+                listener.tokenRemoved(players[i], slot);
+        changed();
+        return count;
     }
 }
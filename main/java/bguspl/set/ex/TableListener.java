@@ -0,0 +1,66 @@
+package bguspl.set.ex;
+
+/**
+ * Receives the changes of a table as they happen (see Table.subscribe): the cards placed and removed, the tokens placed
+ * and removed, the table locked (while the dealer changes it) and unlocked, and the reshuffles. A listener is called on
+ * the thread that changed the table (the dealer's, or a player's for the tokens), right after the change, so it should
+ * return quickly; a thread that should wait for a change blocks with Table.await instead.
+ */
+public interface TableListener {
+
+    /**
+     * A card was placed on the table.
+     *
+     * @param card    - the id of the card.
+     * @param slot    - the slot it was placed in.
+     * @param version - the version of the table after the change.
+     */
+    default void cardPlaced(int card, int slot, long version) {
+    }
+
+    /**
+     * A card was removed from the table.
+     *
+     * @param card    - the id of the card.
+     * @param slot    - the slot it was removed from.
+     * @param version - the version of the table after the change.
+     */
+    default void cardRemoved(int card, int slot, long version) {
+    }
+
+    /**
+     * A player placed a token on the table.
+     *
+     * @param player - the id of the player.
+     * @param slot   - the slot of the token.
+     */
+    default void tokenPlaced(int player, int slot) {
+    }
+
+    /**
+     * A token of a player was removed from the table.
+     *
+     * @param player - the id of the player.
+     * @param slot   - the slot of the token.
+     */
+    default void tokenRemoved(int player, int slot) {
+    }
+
+    /**
+     * The table stopped taking tokens (the dealer is about to change it).
+     */
+    default void locked() {
+    }
+
+    /**
+     * The table takes tokens again.
+     */
+    default void unlocked() {
+    }
+
+    /**
+     * The dealer is about to return all the cards to the deck.
+     */
+    default void reshuffled() {
+    }
+}
@@ -0,0 +1,82 @@
+package bguspl.set.ex;
+
+/**
+ * An immutable view of the cards and the tokens on a table, as they were at one moment (see Table.view). A view never
+ * changes, so it may be read by any thread without locking while the table changes; consecutive views share the
+ * arrays that did not change between them.
+ */
+public final class TableView {
+
+    /**
+     * The state of the table the view was taken at (its changes and writers, see Table.view).
+     */
+    final long sequence;
+
+    /**
+     * The version of the table (see Table.version).
+     */
+    public final long version;
+
+    /**
+     * The card in every slot (Table.EMPTY if none), and the players with a token on every slot (playerWords words per
+     * slot): shared with the table's earlier and later views, never written.
+     */
+    final int[] slotToCard;
+    final long[] slotTokens;
+    private final int playerWords;
+
+    TableView(long sequence, long version, int[] slotToCard, long[] slotTokens, int playerWords) {
+        this.sequence = sequence;
+        this.version = version;
+        this.slotToCard = slotToCard;
+        this.slotTokens = slotTokens;
+        this.playerWords = playerWords;
+    }
+
+    /**
+     * @return - the number of slots on the table.
+     */
+    public int slots() {
+        return slotToCard.length;
+    }
+
+    /**
+     * @param slot - a slot.
+     * @return - the card in the slot, or Table.EMPTY if there is none.
+     */
+    public int cardAt(int slot) {
+        return slotToCard[slot];
+    }
+
+    /**
+     * @param card - a card id.
+     * @return - the slot of the card, or Table.EMPTY if it is not on the table.
+     */
+    public int slotOf(int card) {
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            if (slotToCard[slot] == card) return slot;
+        return Table.EMPTY;
+    }
+
+    /**
+     * @param player - the id of a player.
+     * @param slot   - a slot.
+     * @return - true iff the player has a token on the slot.
+     */
+    public boolean hasToken(int player, int slot) {
+        return (slotTokens[slot * playerWords + (player >>> 6)] & 1L << player) != 0;
+    }
+
+    /**
+     * Lists the cards on the table.
+     *
+     * @param cards - an array of at least slots() entries, to fill with the cards (in the order of their slots).
+     * @return - the number of cards on the table.
+     */
+    public int cards(int[] cards) {
+        int n = 0;
+        for (int card : slotToCard)
+            if (card != Table.EMPTY) cards[n++] = card;
+        return n;
+    }
+}
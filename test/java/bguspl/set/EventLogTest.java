@@ -0,0 +1,82 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void record_FieldsSameAsPacked() {
+        long record = EventLog.record(EventLog.PLACE_TOKEN, 3, 11, 80, 123_456);
+        assertEquals(EventLog.PLACE_TOKEN, EventLog.type(record));
+        assertEquals(3, EventLog.player(record));
+        assertEquals(11, EventLog.slot(record));
+        assertEquals(80, EventLog.card(record));
+        assertEquals(123_456, EventLog.millis(record));
+
+        record = EventLog.record(EventLog.REMOVE_CARD, -1, 300, -1, -5);
+        assertEquals(-1, EventLog.player(record));
+        assertEquals(-1, EventLog.slot(record)); // does not fit
+        assertEquals(-1, EventLog.card(record));
+        assertEquals(0, EventLog.millis(record));
+    }
+
+    @Test
+    void read_AllProducersRecordsAcrossSegments() throws IOException, InterruptedException {
+        int producers = 4, events = 5_000;
+        EventLog log = new EventLog(Logger.getAnonymousLogger(), directory, 4096, new RealClock());
+        EventLogReader reader = new EventLogReader(directory);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int player = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < events; i++) {
+                    log.placeToken(player, i % 12);
+                    if (i % 64 == 0) Thread.yield(); // lets the mapper keep up with the tiny segments
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        // tail the log while it is written
+        int[] read = new int[producers];
+        int[] nextSlot = new int[producers];
+        long total = 0;
+        while (threads.stream().anyMatch(Thread::isAlive) || total < log.written()) {
+            long record = reader.next();
+            if (record == 0) {
+                Thread.sleep(1);
+                continue;
+            }
+            int player = EventLog.player(record);
+            assertEquals(EventLog.PLACE_TOKEN, EventLog.type(record));
+            read[player]++;
+            total++;
+        }
+        for (Thread thread : threads) thread.join();
+        log.verdict(1, Verdict.LEGAL);
+        log.close();
+
+        assertEquals(producers * (long) events, log.written() - 1 + log.dropped());
+        assertEquals(log.written() - 1, total);
+        assertTrue(Files.exists(EventLog.segmentPath(directory, 2)));
+        long verdict = reader.next();
+        assertEquals(EventLog.VERDICT, EventLog.type(verdict));
+        assertEquals(Verdict.LEGAL.ordinal(), EventLog.slot(verdict));
+        assertEquals(0, reader.next());
+    }
+}
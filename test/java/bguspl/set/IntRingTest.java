@@ -0,0 +1,52 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntRingTest {
+
+    @Test
+    void offer_UpToTheCapacity() {
+        IntRing ring = new IntRing(3, IntRing.WaitStrategy.BLOCK, new RealClock());
+        assertEquals(IntRing.EMPTY, ring.poll());
+        for (int round = 0; round < 5; round++) { // wraps around the slots
+            assertTrue(ring.offer(round));
+            assertTrue(ring.offer(round + 1));
+            assertTrue(ring.offer(round + 2));
+            assertFalse(ring.offer(round + 3));
+            assertEquals(3, ring.size());
+            assertEquals(round, ring.poll());
+            assertEquals(round + 1, ring.poll());
+            assertEquals(round + 2, ring.poll());
+            assertTrue(ring.isEmpty());
+        }
+    }
+
+    @Test
+    void take_EveryElementInOrder() throws InterruptedException {
+        for (IntRing.WaitStrategy strategy : IntRing.WaitStrategy.values()) {
+            IntRing ring = new IntRing(3, strategy, new RealClock());
+            // a busy-waiting consumer shares the cpu with the producer, which is slow on a single cpu
+            boolean busy = strategy == IntRing.WaitStrategy.SPIN || strategy == IntRing.WaitStrategy.YIELD;
+            int count = busy ? 300 : 20_000;
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < count; i++)
+                    while (!ring.offer(i)) Thread.yield();
+            });
+            producer.start();
+            for (int i = 0; i < count; i++)
+                assertEquals(i, ring.take(() -> false), strategy.name());
+            producer.join();
+            assertTrue(ring.isEmpty());
+        }
+    }
+
+    @Test
+    void take_Cancelled() throws InterruptedException {
+        IntRing ring = new IntRing(1, IntRing.WaitStrategy.BLOCK, new RealClock());
+        assertEquals(IntRing.EMPTY, ring.take(() -> true));
+    }
+}
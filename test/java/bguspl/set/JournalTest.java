@@ -0,0 +1,102 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JournalTest {
+
+    /**
+     * Collects the events it receives as strings, with the times the reader gives them.
+     */
+    private static class Recorder implements Journal {
+        final List<String> events = new ArrayList<>();
+        JournalReader reader;
+
+        private void add(String event) {
+            events.add(reader.time() + " " + event);
+        }
+
+        @Override
+        public void placeCard(int card, int slot) {
+            add("placeCard " + card + " " + slot);
+        }
+
+        @Override
+        public void removeCard(int slot) {
+            add("removeCard " + slot);
+        }
+
+        @Override
+        public void placeToken(int player, int slot) {
+            add("placeToken " + player + " " + slot);
+        }
+
+        @Override
+        public void removeToken(int player, int slot) {
+            add("removeToken " + player + " " + slot);
+        }
+
+        @Override
+        public void claim(int player, int[] cards) {
+            add("claim " + player + " " + Arrays.toString(cards));
+        }
+
+        @Override
+        public void verdict(int player, Verdict verdict) {
+            add("verdict " + player + " " + verdict);
+        }
+
+        @Override
+        public void reshuffle() {
+            add("reshuffle");
+        }
+    }
+
+    @Test
+    void readEvents_SameAsWritten() throws IOException, InterruptedException {
+        Config config = TestConfig.config();
+        VirtualClock clock = new VirtualClock();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JournalWriter writer = new JournalWriter(Logger.getAnonymousLogger(), config, clock, -7, out);
+
+        clock.register();
+        writer.placeCard(80, 11);
+        writer.placeToken(1, 11);
+        clock.sleep(300);
+        writer.claim(1, new int[]{80, -1, 0});
+        clock.sleep(100_000);
+        writer.verdict(1, Verdict.DROPPED);
+        writer.removeToken(1, 11);
+        writer.reshuffle();
+        writer.removeCard(11);
+        clock.unregister();
+        writer.close();
+
+        Recorder actual = new Recorder();
+        try (JournalReader reader = new JournalReader(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(-7, reader.seed);
+            assertEquals(config.tableSize, reader.tableSize);
+            assertEquals(config.players, reader.players);
+            actual.reader = reader;
+            while (reader.next(actual)) ;
+        }
+        assertEquals(Arrays.asList(
+                "0 placeCard 80 11", "0 placeToken 1 11", "300 claim 1 [80, -1, 0]", "100300 verdict 1 DROPPED",
+                "100300 removeToken 1 11", "100300 reshuffle", "100300 removeCard 11"), actual.events);
+    }
+
+    @Test
+    void read_NotAJournal() {
+        assertThrows(IOException.class, () -> new JournalReader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5})));
+    }
+}
@@ -0,0 +1,45 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SetIndexTest {
+
+    @Test
+    void countSets_SameAsFindSets() {
+        int[][] settings = {{2, 3}, {3, 2}, {3, 4}, {4, 2}, {5, 2}};
+        Random random = new Random(7);
+        for (int[] setting : settings) {
+            Config config = TestConfig.config(setting[0], setting[1]);
+            Util util = new UtilImpl(config);
+            SetIndex index = new SetIndex(config);
+            List<Integer> cards = new ArrayList<>();
+
+            for (int step = 0; step < 200; ++step) {
+                int card = random.nextInt(config.deckSize);
+                if (index.contains(card)) {
+                    index.remove(card);
+                    cards.remove((Integer) card);
+                } else {
+                    index.add(card);
+                    cards.add(card);
+                }
+
+                List<int[]> sets = util.findSets(cards, Integer.MAX_VALUE);
+                assertEquals(sets.size(), index.countSets());
+                assertEquals(cards.size(), index.size());
+                int[] memberships = new int[config.deckSize];
+                sets.forEach(set -> {
+                    for (int c : set) memberships[c]++;
+                });
+                for (int c = 0; c < config.deckSize; ++c)
+                    assertEquals(memberships[c], index.countSets(c));
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulationTest {
+
+    @Test
+    void run_BonusModesPlayToTheEnd() {
+        for (String turnTimeout : new String[]{"0", "-1"}) {
+            Logger logger = Logger.getAnonymousLogger();
+            logger.setLevel(Level.OFF);
+            Config config = TestConfig.config(logger, "HumanPlayers", "0", "ComputerPlayers", "2",
+                    "AiStrategy", "Finder", "TurnTimeoutSeconds", turnTimeout, "Seed", "7");
+
+            Simulation.Summary summary = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                    () -> new Simulation(logger, config, new UtilImpl(config)).run(3), "TurnTimeoutSeconds=" + turnTimeout);
+            assertEquals(3, summary.games);
+            assertTrue(summary.sets >= 3 * 20, "TurnTimeoutSeconds=" + turnTimeout); // the deck is played out
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package bguspl.set;
+
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Creates configurations for the tests: the defaults of Config (without reading the configuration file, and without
+ * keys for the players) with the given settings.
+ */
+public final class TestConfig {
+
+    private TestConfig() {
+    }
+
+    /**
+     * @param settings - pairs of a setting name and its value (e.g. "TurnTimeoutSeconds", "0").
+     * @return - the configuration.
+     */
+    public static Config config(String... settings) {
+        return config(Logger.getAnonymousLogger(), settings);
+    }
+
+    /**
+     * @param featureSize  - the number of values of every feature.
+     * @param featureCount - the number of features.
+     * @param settings     - pairs of a setting name and its value.
+     * @return - the configuration of a deck of featureSize^featureCount cards.
+     */
+    public static Config config(int featureSize, int featureCount, String... settings) {
+        String[] all = new String[settings.length + 4];
+        all[0] = "FeatureSize";
+        all[1] = Integer.toString(featureSize);
+        all[2] = "FeatureCount";
+        all[3] = Integer.toString(featureCount);
+        System.arraycopy(settings, 0, all, 4, settings.length);
+        return config(all);
+    }
+
+    /**
+     * @param logger   - the logger of the configuration.
+     * @param settings - pairs of a setting name and its value.
+     * @return - the configuration.
+     */
+    public static Config config(Logger logger, String... settings) {
+        Properties properties = new Properties();
+        properties.put("PlayerKeys1", "");
+        properties.put("PlayerKeys2", "");
+        for (int i = 0; i < settings.length; i += 2)
+            properties.put(settings[i], settings[i + 1]);
+        return new Config(logger, properties);
+    }
+}
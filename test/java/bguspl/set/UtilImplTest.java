@@ -0,0 +1,235 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class UtilImplTest {
+
+    /**
+     * The original implementation of findSets (testing every combination), used as a reference.
+     */
+    private static List<int[]> findSetsByCombinations(Util util, Config config, List<Integer> deck, int count) {
+        LinkedList<int[]> sets = new LinkedList<>();
+        int n = deck.size();
+        int r = config.featureSize;
+        int[] combination = new int[r];
+
+        for (int i = 0; i < r; ++i)
+            combination[i] = i;
+
+        while (combination[r - 1] < deck.size()) {
+            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
+            if (util.testSet(cards)) {
+                sets.add(cards);
+                if (sets.size() >= count) return sets;
+            }
+
+            // generate next combination in lexicographic order
+            int t = r - 1;
+            while (t != 0 && combination[t] == n - r + t) --t;
+            combination[t]++;
+            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+        }
+        return sets;
+    }
+
+    private static void assertSameSets(List<int[]> expected, List<int[]> actual) {
+        assertEquals(expected.stream().map(Arrays::toString).collect(Collectors.toList()),
+                actual.stream().map(Arrays::toString).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findSets_SameAsAllCombinations() {
+        int[][] settings = {{1, 3}, {2, 3}, {3, 1}, {3, 2}, {3, 3}, {3, 4}, {4, 2}, {4, 3}, {5, 2}, {6, 2}};
+        Random random = new Random(42);
+        for (int[] setting : settings) {
+            Config config = TestConfig.config(setting[0], setting[1]);
+            Util util = new UtilImpl(config);
+            List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+            for (int round = 0; round < 5; ++round) {
+                Collections.shuffle(deck, random);
+                List<Integer> cards = new ArrayList<>(deck.subList(0, Math.min(deck.size(), 6 + round * 6)));
+                for (int count : new int[]{0, 1, 3, Integer.MAX_VALUE})
+                    assertSameSets(findSetsByCombinations(util, config, cards, count), util.findSets(cards, count));
+            }
+        }
+    }
+
+    @Test
+    void findSets_FullDeck() {
+        Config config = TestConfig.config(3, 4);
+        Util util = new UtilImpl(config);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+
+        List<int[]> sets = util.findSets(deck, Integer.MAX_VALUE);
+        assertEquals(1080, sets.size());
+        assertSameSets(findSetsByCombinations(util, config, deck, Integer.MAX_VALUE), sets);
+    }
+
+    @Test
+    void findSets_PrimitiveSameAsList() {
+        Config config = TestConfig.config(3, 4);
+        Util util = new UtilImpl(config);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck, new Random(1));
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+
+        int[] out = new int[10 * config.featureSize];
+        int found = util.findSets(cards, 20, 10, out);
+        List<int[]> expected = util.findSets(deck.subList(0, 20), 10);
+        assertEquals(expected.size(), found);
+        for (int i = 0; i < found; ++i)
+            assertArrayEquals(expected.get(i), Arrays.copyOfRange(out, i * config.featureSize, (i + 1) * config.featureSize));
+    }
+
+    @Test
+    void testSet_PrimitiveSameAsFeatures() {
+        Config config = TestConfig.config(3, 4);
+        Util util = new UtilImpl(config);
+        int[] cards = {4, 0, 1, 2, 8};
+        assertTrue(util.testSet(cards, 1, 3));
+        assertEquals(util.testSet(new int[]{4, 0, 1}), util.testSet(cards, 0, 3));
+        assertFalse(util.testSet(new int[]{-1, 0, 1}, 0, 3));
+    }
+
+    @Test
+    void streamSets_SameAsFindSets() {
+        int[][] settings = {{1, 3}, {2, 3}, {3, 2}, {3, 4}, {4, 3}, {5, 2}};
+        for (int[] setting : settings) {
+            Config config = TestConfig.config(setting[0], setting[1]);
+            Util util = new UtilImpl(config);
+            List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+            Collections.shuffle(deck, new Random(5));
+            int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+
+            List<int[]> expected = util.findSets(deck, Integer.MAX_VALUE);
+            assertSameSets(expected, util.streamSets(cards, cards.length).collect(Collectors.toList()));
+            assertSameSets(expected, util.streamSets(cards, cards.length).parallel().collect(Collectors.toList()));
+            assertEquals(expected.size(), util.countSets(cards, cards.length));
+
+            List<int[]> first = new ArrayList<>();
+            util.streamSets(cards, cards.length).iterator().forEachRemaining(set -> {
+                if (first.size() < 3) first.add(set);
+            });
+            assertSameSets(expected.subList(0, Math.min(3, expected.size())), first);
+            assertSameSets(util.findSets(deck, 2).subList(0, Math.min(2, expected.size())),
+                    util.streamSets(cards, cards.length).limit(2).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void trySplit_AfterTryAdvanceKeepsTheOrder() {
+        Config config = TestConfig.config(3, 4);
+        Util util = new UtilImpl(config);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck, new Random(9));
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+
+        SetSpliterator sets = new SetSpliterator(config, new CardCodec(config), cards, cards.length);
+        List<int[]> actual = new ArrayList<>();
+        assertTrue(sets.tryAdvance(actual::add)); // the other sets of the first card are buffered
+        Spliterator<int[]> prefix = sets.trySplit();
+        prefix.forEachRemaining(actual::add);
+        sets.forEachRemaining(actual::add);
+        assertSameSets(util.findSets(deck, Integer.MAX_VALUE), actual);
+    }
+
+    @Test
+    void findSets_ParallelSameAsSequential() {
+        int[][] settings = {{2, 4}, {3, 2}, {3, 4}, {3, 5}, {4, 3}};
+        Random random = new Random(11);
+        for (int[] setting : settings) {
+            Util sequentialUtil = new UtilImpl(TestConfig.config(setting[0], setting[1]));
+            Config config = TestConfig.config(setting[0], setting[1], "FinderParallelism", "4", "ParallelFinderMinCards", "0");
+            Util parallelUtil = new UtilImpl(config);
+            List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+            for (int round = 0; round < 3; ++round) {
+                Collections.shuffle(deck, random);
+                int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+                for (int count : new int[]{1, 7, 100, Integer.MAX_VALUE})
+                    assertSameSets(sequentialUtil.findSets(deck, count), parallelUtil.findSets(deck, count));
+                int[] expected = new int[7 * config.featureSize], actual = new int[expected.length];
+                assertEquals(sequentialUtil.findSets(cards, cards.length, 7, expected),
+                        parallelUtil.findSets(cards, cards.length, 7, actual));
+                assertArrayEquals(expected, actual);
+                assertEquals(sequentialUtil.countSets(cards, cards.length), parallelUtil.countSets(cards, cards.length));
+            }
+            parallelUtil.close();
+        }
+    }
+
+    @Test
+    void testSet_SameAsFeatures() {
+        int[][] settings = {{1, 3}, {2, 3}, {3, 1}, {3, 4}, {4, 3}, {5, 2}, {4, 8}, {16, 4}, {17, 1}};
+        Random random = new Random(3);
+        for (int[] setting : settings) {
+            Config config = TestConfig.config(setting[0], setting[1]);
+            Util util = new UtilImpl(config);
+            for (int round = 0; round < 2000; ++round) {
+                int[] cards = new int[config.featureSize];
+                for (int i = 0; i < cards.length; ++i)
+                    cards[i] = round % 3 == 0 && i > 0 ? cards[i - 1] : random.nextInt(config.deckSize);
+                if (round % 5 == 0) // make sure to hit legal sets too
+                    for (int i = 0; i < cards.length; ++i)
+                        cards[i] = (cards[0] + i * (round % 2 == 0 ? 1 : config.deckSize / config.featureSize)) % config.deckSize;
+
+                int[][] features = util.cardsToFeatures(cards);
+                boolean expected = true;
+                for (int f = 0; f < config.featureCount; ++f) {
+                    int feature = f;
+                    long distinct = Arrays.stream(features).mapToInt(card -> card[feature]).distinct().count();
+                    expected &= cards.length > 1 && (distinct == 1 || distinct == cards.length);
+                }
+                assertEquals(expected || config.featureCount == 0, util.testSet(cards), Arrays.toString(cards));
+            }
+        }
+    }
+
+    @Test
+    void hotPaths_DoNotAllocate() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        Config config = TestConfig.config(3, 4);
+        Util util = new UtilImpl(config);
+        SetIndex index = new SetIndex(config);
+        int[] cards = IntStream.range(0, config.deckSize).toArray();
+        int[] features = new int[config.featureCount];
+        int[] out = new int[4 * config.featureSize];
+        Runnable hotPaths = () -> {
+            for (int i = 0; i < 1000; ++i) {
+                util.testSet(cards, i % 70, 3);
+                util.cardToFeatures(i % config.deckSize, features);
+                util.findSets(cards, 12, 4, out);
+                index.add(i % config.deckSize);
+                if (i % 2 == 0) index.remove((i / 2) % config.deckSize);
+            }
+        };
+
+        hotPaths.run(); // warm up (class loading, thread locals)
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        hotPaths.run();
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+}
@@ -0,0 +1,54 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VirtualClockTest {
+
+    @Test
+    void sleep_AdvancesToTheDeadlineAtOnce() throws InterruptedException {
+        VirtualClock clock = new VirtualClock();
+        clock.register();
+        long start = System.nanoTime();
+        clock.sleep(60_000);
+        assertEquals(60_000, clock.millis());
+        assertEquals(0, (System.nanoTime() - start) / 1_000_000_000);
+        clock.unregister();
+    }
+
+    @Test
+    void poll_WaitsForTheOtherParticipants() throws InterruptedException {
+        VirtualClock clock = new VirtualClock();
+        BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+        clock.register();
+        clock.register();
+        Thread producer = new Thread(() -> {
+            try {
+                clock.sleep(1_000);
+                clock.offer(queue, 7);
+                clock.sleep(5_000);
+            } catch (InterruptedException ignored) {
+            } finally {
+                clock.unregister();
+            }
+        });
+        producer.start();
+
+        // the time stands still until the producer sleeps, and the element comes before the timeout
+        assertEquals(7, clock.poll(queue, 3_000));
+        assertEquals(1_000, clock.millis());
+
+        // the producer is asleep until 6000, so the poll times out at 4000
+        assertNull(clock.poll(queue, 3_000));
+        assertEquals(4_000, clock.millis());
+
+        clock.unregister();
+        producer.join();
+        assertEquals(6_000, clock.millis());
+    }
+}
@@ -0,0 +1,98 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.ReactionDistribution;
+import bguspl.set.TestConfig;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AiStrategyTest {
+
+    private Env env;
+    private Table table;
+
+    private void setUp(String... settings) {
+        Config config = TestConfig.config(settings);
+        env = new Env(Logger.getAnonymousLogger(), config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        table = new Table(env);
+        table.unlock();
+        for (int slot = 0; slot < config.tableSize; slot++)
+            table.place(slot, slot); // cards 0, 1 and 2 are a set (among others)
+    }
+
+    private int[] cards(int[] slots, int n) {
+        int[] cards = new int[n];
+        for (int i = 0; i < n; i++)
+            cards[i] = table.cardAt(slots[i]);
+        return cards;
+    }
+
+    @Test
+    void finder_PressesTheSet() {
+        setUp();
+        AiStrategy strategy = new FinderStrategy(env, new AiSkill(env.config, new Random(1)));
+        table.placeToken(0, 2);
+        table.placeToken(0, 7);
+        int[] presses = new int[2 * env.config.featureSize];
+
+        int count = strategy.choose(table, 0, presses);
+        for (int i = 0; i < count; i++)
+            if (table.removeToken(0, presses[i]) == Table.EMPTY) table.placeToken(0, presses[i]);
+
+        int[] tokens = new int[env.config.tableSize];
+        int n = 0;
+        for (int slot = 0; slot < env.config.tableSize; slot++)
+            if (table.hasToken(0, slot)) tokens[n++] = slot;
+        assertEquals(3, n);
+        assertTrue(env.util.testSet(cards(tokens, n)));
+    }
+
+    @Test
+    void finder_WithErrors_PressesAnotherSet() {
+        setUp("AiErrorRate", "1");
+        AiStrategy strategy = new FinderStrategy(env, new AiSkill(env.config, new Random(1)));
+        int[] presses = new int[2 * env.config.featureSize];
+
+        assertEquals(3, strategy.choose(table, 0, presses));
+        assertFalse(env.util.testSet(cards(presses, 3)));
+    }
+
+    @Test
+    void completion_FindsTheSetOrRetries() {
+        setUp("AiSearchAttempts", "1");
+        AiStrategy strategy = new CompletionStrategy(env, new AiSkill(env.config, new Random(1)));
+        int[] presses = new int[2 * env.config.featureSize];
+        int found = 0;
+        for (int look = 0; look < 1000; look++) {
+            int count = strategy.choose(table, 0, presses);
+            if (count == AiStrategy.RETRY) continue;
+            assertEquals(3, count);
+            assertTrue(env.util.testSet(cards(presses, count)));
+            found++;
+        }
+        assertTrue(found > 0 && found < 1000);
+    }
+
+    @Test
+    void reactionMillis_WithinTheDistribution() {
+        Random random = new Random(1);
+        AiSkill fixed = new AiSkill(ReactionDistribution.FIXED, 300, 100, 0, random);
+        AiSkill uniform = new AiSkill(ReactionDistribution.UNIFORM, 300, 100, 0, random);
+        AiSkill gaussian = new AiSkill(ReactionDistribution.GAUSSIAN, 50, 100, 0, random);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(300, fixed.reactionMillis());
+            long millis = uniform.reactionMillis();
+            assertTrue(millis >= 200 && millis <= 400);
+            assertTrue(gaussian.reactionMillis() >= 0);
+            assertFalse(fixed.errs());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.NoUserInterface;
+import bguspl.set.TestConfig;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DealerTest {
+
+    private Env env;
+    private Dealer dealer;
+
+    private void setUp(int featureSize, int featureCount) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+        Config config = TestConfig.config(logger, "FeatureSize", Integer.toString(featureSize),
+                "FeatureCount", Integer.toString(featureCount), "TableDelaySeconds", "0", "EndGamePauseSeconds", "0");
+        env = new Env(logger, config, new NoUserInterface(), new UtilImpl(config));
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        // a large deck is searched instead of indexed, so the dealer is created at once
+        dealer = assertTimeoutPreemptively(Duration.ofSeconds(1), () -> new Dealer(env, table, players));
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+    }
+
+    /**
+     * Restores a game whose deck is empty and whose table holds the given cards.
+     */
+    private void restore(int... cards) {
+        Config config = env.config;
+        int[] slotToCard = new int[config.tableSize];
+        Arrays.fill(slotToCard, -1);
+        System.arraycopy(cards, 0, slotToCard, 0, cards.length);
+        int[][] setQueues = new int[config.players][config.featureSize];
+        for (int[] setQueue : setQueues) Arrays.fill(setQueue, -1);
+        dealer.restore(new Snapshot(0, config, new int[0], slotToCard, new int[config.players], setQueues,
+                new long[config.players], -1));
+    }
+
+    /**
+     * @return - the cards of a legal set.
+     */
+    private int[] set() {
+        int[] cards = new int[env.config.deckSize];
+        Arrays.setAll(cards, card -> card);
+        int[] set = new int[env.config.featureSize];
+        env.util.findSets(cards, cards.length, 1, set);
+        return set;
+    }
+
+    private void assertSetsLeft(int featureSize, int featureCount) {
+        setUp(featureSize, featureCount);
+        assertTrue(dealer.setsLeft());
+        int[] set = set();
+        restore(set);
+        assertTrue(dealer.setsLeft());
+
+        setUp(featureSize, featureCount);
+        restore(Arrays.copyOf(set, set.length - 1));
+        assertFalse(dealer.setsLeft());
+        assertTimeoutPreemptively(Duration.ofSeconds(10), dealer::run);
+        assertTrue(dealer.isOver()); // the game ended by itself
+    }
+
+    @Test
+    void setsLeft_IndexedDeck() {
+        assertSetsLeft(3, 4);
+    }
+
+    @Test
+    void setsLeft_SearchedDeck() {
+        assertSetsLeft(4, 5);
+    }
+
+    @Test
+    void setsLeft_SearchWithoutAllocating() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        setUp(4, 5);
+        set(); // warm up (the set finder of the thread)
+
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        assertTrue(dealer.setsLeft()); // the first call searches the whole deck
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+}
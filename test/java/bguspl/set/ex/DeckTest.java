@@ -0,0 +1,39 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.TestConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeckTest {
+
+    @Test
+    void draw_EveryCardOnceThenReturned() {
+        Config config = TestConfig.config();
+        Deck deck = new Deck(config, new Random(2));
+        assertEquals(config.deckSize, deck.size());
+
+        boolean[] drawn = new boolean[config.deckSize];
+        int[] out = new int[config.tableSize];
+        while (!deck.isEmpty()) {
+            int count = deck.draw(out, out.length);
+            for (int i = 0; i < count; ++i) {
+                assertFalse(drawn[out[i]]);
+                drawn[out[i]] = true;
+            }
+        }
+        assertEquals(0, deck.size());
+        assertEquals(-1, deck.draw());
+
+        for (int card = 0; card < config.deckSize; ++card) {
+            assertTrue(drawn[card]);
+            deck.add(card);
+        }
+        assertEquals(config.deckSize, deck.size());
+    }
+}
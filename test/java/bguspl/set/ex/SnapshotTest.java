@@ -0,0 +1,82 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.TestConfig;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotTest {
+
+    private static Snapshot snapshot(Config config) {
+        int[] slotToCard = new int[config.tableSize];
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            slotToCard[slot] = slot == 3 ? -1 : 80 - slot;
+        return new Snapshot(12345, config, new int[]{5, 0, 17, 42}, slotToCard, new int[]{3, 7},
+                new int[][]{{80, -1, 70}, {-1, -1, -1}}, new long[]{0, 2500}, 41000);
+    }
+
+    private static byte[] write(Snapshot snapshot) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.write(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void read_SameAsWritten() throws IOException {
+        Config config = TestConfig.config();
+        Snapshot expected = snapshot(config);
+        Snapshot actual = Snapshot.read(new ByteArrayInputStream(write(expected)));
+
+        assertTrue(actual.fits(config));
+        assertEquals(expected.time, actual.time);
+        assertArrayEquals(expected.deck, actual.deck);
+        assertArrayEquals(expected.slotToCard, actual.slotToCard);
+        assertArrayEquals(expected.scores, actual.scores);
+        assertArrayEquals(expected.setQueues, actual.setQueues);
+        assertArrayEquals(expected.freezeMillis, actual.freezeMillis);
+        assertEquals(expected.countdownMillis, actual.countdownMillis);
+    }
+
+    @Test
+    void read_LargeDeck() throws IOException {
+        Config config = TestConfig.config(3, 10);
+        int[] deck = new int[config.deckSize - config.tableSize];
+        for (int i = 0; i < deck.length; i++)
+            deck[i] = config.deckSize - 1 - i;
+        int[] slotToCard = new int[config.tableSize];
+        int[][] setQueues = new int[config.players][config.featureSize];
+        for (int[] setQueue : setQueues) setQueue[0] = config.deckSize - 1;
+        Snapshot expected = new Snapshot(0, config, deck, slotToCard, new int[config.players], setQueues,
+                new long[config.players], -1);
+        Snapshot actual = Snapshot.read(new ByteArrayInputStream(write(expected)));
+
+        assertArrayEquals(expected.deck, actual.deck);
+        assertArrayEquals(expected.setQueues, actual.setQueues);
+    }
+
+    @Test
+    void read_CardOutOfRange() throws IOException {
+        Config config = TestConfig.config();
+        Snapshot snapshot = snapshot(config);
+        snapshot.slotToCard[0] = config.deckSize;
+        IOException e = assertThrows(IOException.class, () -> Snapshot.read(new ByteArrayInputStream(write(snapshot))));
+        assertTrue(e.getMessage().contains("out of range"));
+    }
+
+    @Test
+    void read_Corrupt() throws IOException {
+        byte[] bytes = write(snapshot(TestConfig.config()));
+        bytes[bytes.length / 2] ^= 1;
+        IOException e = assertThrows(IOException.class, () -> Snapshot.read(new ByteArrayInputStream(bytes)));
+        assertTrue(e.getMessage().contains("checksum"));
+        assertThrows(IOException.class, () -> Snapshot.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5})));
+    }
+}
@@ -7,17 +7,22 @@ import bguspl.set.Util;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TableTest {
 
     Table table;
-    private Integer[] slotToCard;
-    private Integer[] cardToSlot;
+    private int[] slotToCard;
+    private int[] cardToSlot;
 
     @BeforeEach
     void setUp() {
@@ -32,8 +37,10 @@ class TableTest {
         properties.put("PlayerKeys2", "85,73,79,80");
         MockLogger logger = new MockLogger();
         Config config = new Config(logger, properties);
-        slotToCard = new Integer[config.tableSize];
-        cardToSlot = new Integer[config.deckSize];
+        slotToCard = new int[config.tableSize];
+        cardToSlot = new int[config.deckSize];
+        Arrays.fill(slotToCard, Table.EMPTY);
+        Arrays.fill(cardToSlot, Table.EMPTY);
 
         Env env = new Env(logger, config, new MockUserInterface(), new MockUtil());
         table = new Table(env, slotToCard, cardToSlot);
@@ -58,8 +65,10 @@ class TableTest {
     private void placeSomeCardsAndAssert() throws InterruptedException {
         table.placeCard(8, 2);
 
-        assertEquals(8, (int) slotToCard[2]);
-        assertEquals(2, (int) cardToSlot[8]);
+        assertEquals(8, slotToCard[2]);
+        assertEquals(2, cardToSlot[8]);
+        assertEquals(8, table.cardAt(2));
+        assertEquals(2, table.slotOf(8));
     }
 
     @Test
@@ -95,6 +104,160 @@ class TableTest {
         placeSomeCardsAndAssert();
     }
 
+    @Test
+    void countSets_PlacedAndRemovedCards() {
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        assertEquals(0, table.countSets());
+
+        table.placeCard(2, 3); // cards 0, 1 and 2 differ in one feature only
+        assertEquals(1, table.countSets());
+        assertEquals(1, table.countSets(0));
+        assertEquals(0, table.countSets(2));
+
+        table.removeCard(1);
+        assertEquals(0, table.countSets());
+        assertEquals(0, table.countSets(0));
+    }
+
+    @Test
+    void isCurrent_OnlyChangedSlotsMakeClaimsStale() {
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        table.placeCard(2, 2);
+        Claim claim = table.claim(0, new int[]{0, 1, 2});
+        assertTrue(table.isCurrent(claim));
+
+        table.placeCard(3, 3); // another slot changed
+        assertTrue(table.isCurrent(claim));
+
+        table.removeCard(1);
+        table.placeCard(1, 1); // the same card, but dealt again
+        assertFalse(table.isCurrent(claim));
+        assertFalse(table.isCurrent(table.claim(0, new int[]{0, 1, 4}))); // card 4 is not on the table
+    }
+
+    @Test
+    void subscribe_ListenerGetsEveryChange() {
+        List<String> events = new ArrayList<>();
+        table.subscribe(new TableListener() {
+            @Override
+            public void cardPlaced(int card, int slot, long version) { events.add("card " + card + "@" + slot + " v" + version); }
+            @Override
+            public void cardRemoved(int card, int slot, long version) { events.add("-card " + card + "@" + slot + " v" + version); }
+            @Override
+            public void tokenPlaced(int player, int slot) { events.add("token " + player + "@" + slot); }
+            @Override
+            public void tokenRemoved(int player, int slot) { events.add("-token " + player + "@" + slot); }
+            @Override
+            public void locked() { events.add("locked"); }
+            @Override
+            public void unlocked() { events.add("unlocked"); }
+            @Override
+            public void reshuffled() { events.add("reshuffled"); }
+        });
+
+        table.placeCard(8, 2);
+        table.unlock();
+        table.unlock(); // already unlocked
+        table.placeToken(1, 2);
+        table.removeToken(1, 2);
+        table.lock();
+        table.reshuffle();
+        table.removeCard(2);
+
+        assertEquals(List.of("card 8@2 v1", "unlocked", "token 1@2", "-token 1@2", "locked", "reshuffled",
+                "-card 8@2 v2"), events);
+    }
+
+    @Test
+    void await_WokenByAChange() throws InterruptedException {
+        long version = table.version();
+        Thread waiter = new Thread(() -> {
+            try {
+                table.await(() -> table.version() != version);
+            } catch (InterruptedException ignored) {
+            }
+        });
+        waiter.start();
+        Thread.sleep(50);
+        table.placeCard(8, 2);
+        waiter.join(5000);
+        assertFalse(waiter.isAlive());
+    }
+
+    @Test
+    void placeToken_ConcurrentPlayers() throws InterruptedException {
+        fillAllSlots();
+        table.unlock();
+        Thread[] threads = new Thread[2];
+        boolean[][] expected = new boolean[threads.length][slotToCard.length];
+        for (int player = 0; player < threads.length; player++) {
+            int id = player;
+            threads[player] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    int slot = i % slotToCard.length;
+                    if (expected[id][slot]) assertEquals(slot, table.removeToken(id, slot));
+                    else assertEquals(slot, table.placeToken(id, slot));
+                    expected[id][slot] = !expected[id][slot];
+                }
+            });
+            threads[player].start();
+        }
+        for (Thread thread : threads) thread.join();
+        for (int player = 0; player < threads.length; player++)
+            for (int slot = 0; slot < slotToCard.length; slot++)
+                assertEquals(expected[player][slot], table.hasToken(player, slot));
+    }
+
+    @Test
+    void removeTokens_AllPlayersOfASlot() {
+        fillAllSlots();
+        table.unlock();
+        table.placeToken(0, 1);
+        table.placeToken(1, 1);
+        table.placeToken(1, 2);
+        assertEquals(2, table.countTokens(1));
+
+        int[] players = new int[2];
+        assertEquals(2, table.removeTokens(1, players));
+        assertEquals(0, players[0]);
+        assertEquals(1, players[1]);
+        assertFalse(table.hasToken(0, 1));
+        assertEquals(0, table.countTokens(0));
+        int[] slots = new int[3];
+        assertEquals(1, table.tokens(1, slots));
+        assertEquals(2, slots[0]);
+        assertEquals(0, table.removeTokens(1, players));
+    }
+
+    @Test
+    void view_SeesTheTableBeforeTheDealersBatch() {
+        fillAllSlots();
+        table.unlock();
+        table.placeToken(0, 1);
+        TableView view = table.view();
+        assertEquals(2, view.cardAt(2));
+        assertTrue(view.hasToken(0, 1));
+        assertEquals(view, table.view()); // nothing changed, the same view
+
+        table.placeToken(1, 3);
+        TableView next = table.view();
+        assertTrue(next.hasToken(1, 3));
+        assertFalse(view.hasToken(1, 3));
+        assertEquals(view.slotToCard, next.slotToCard); // the cards did not change, their array is shared
+
+        table.lock();
+        table.removeCard(2);
+        table.placeCard(8, 2);
+        assertEquals(8, table.cardAt(2));
+        assertEquals(2, table.view().cardAt(2)); // the batch is not seen before the table is unlocked
+        table.unlock();
+        assertEquals(8, table.view().cardAt(2));
+        assertEquals(2, table.view().slotOf(8));
+        assertEquals(table.version(), table.view().version);
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}
@@ -128,6 +291,9 @@ class TableTest {
             return new int[0];
         }
 
+        @Override
+        public void cardToFeatures(int card, int[] features) {}
+
         @Override
         public int[][] cardsToFeatures(int[] cards) {
             return new int[0][];
@@ -138,11 +304,31 @@ class TableTest {
             return false;
         }
 
+        @Override
+        public boolean testSet(int[] cards, int offset, int length) {
+            return false;
+        }
+
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
             return null;
         }
 
+        @Override
+        public int findSets(int[] cards, int n, int count, int[] out) {
+            return 0;
+        }
+
+        @Override
+        public Stream<int[]> streamSets(int[] cards, int n) {
+            return Stream.empty();
+        }
+
+        @Override
+        public long countSets(int[] cards, int n) {
+            return 0;
+        }
+
         @Override
         public void spin() {}
     }